@@ -18,7 +18,8 @@ public abstract class AbstractBuildParameterFactory extends AbstractDescribableI
      *
      * This causes the parameterized trigger to trigger the configured project N times, each with Xi for i=1...N.
      * If there is another {@link AbstractBuildParameterFactory} configured and that returns Y1, Y2, ... YM,
-     * then the project will be invoked MxN times, with all the possible combinations of Xi and Yj.
+     * then the project will be invoked MxN times, with all the possible combinations of Xi and Yj,
+     * unless the {@link BuildTriggerConfig#getCombinationStrategy()} selects fewer combinations.
      *
      * @param build
      *      The build which the parameterized trigger is configured and executing.
@@ -0,0 +1,524 @@
+package hudson.plugins.parameterizedtrigger;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.Action;
+import hudson.model.Api;
+import hudson.model.Computer;
+import hudson.model.InvisibleAction;
+import hudson.model.Job;
+import hudson.model.Label;
+import hudson.model.Queue;
+import hudson.model.RootAction;
+import hudson.model.TaskListener;
+import hudson.model.labels.LabelAssignmentAction;
+import hudson.model.queue.QueueListener;
+import hudson.model.queue.QueueTaskFuture;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Holds the builds triggered by this plugin in a buffer, and lets them into the queue as executors free up, so that
+ * many upstream builds triggering at once do not flood the queue.
+ *
+ * <p>
+ * Builds triggered by this plugin and still in the queue are counted by label. Once as many of them as
+ * {@link #QUEUED_PER_IDLE_EXECUTOR} times the idle executors of their label, and at least
+ * {@link #MIN_QUEUED_PER_LABEL}, are queued, further builds for that label wait in the buffer. Waiting builds are let
+ * in one folder at a time, in turns, so one folder triggering many builds does not hold back the others.
+ *
+ * <p>
+ * The buffer is not persisted. Builds still in it when Jenkins stops are put into the queue, which is.
+ */
+@Restricted(NoExternalUse.class)
+public final class AdmissionControl {
+    private static final Logger LOGGER = Logger.getLogger(AdmissionControl.class.getName());
+
+    /**
+     * Builds let into the queue per idle executor of their label, 0 to let all builds in right away.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tunable from the script console")
+    public static int QUEUED_PER_IDLE_EXECUTOR =
+            Integer.getInteger(AdmissionControl.class.getName() + ".queuedPerIdleExecutor", 0);
+
+    /**
+     * Builds let into the queue for a label without idle executors, for clouds to provision agents for them.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tunable from the script console")
+    public static int MIN_QUEUED_PER_LABEL =
+            Integer.getInteger(AdmissionControl.class.getName() + ".minQueuedPerLabel", 10);
+
+    private static final AdmissionControl INSTANCE = new AdmissionControl();
+
+    /**
+     * Waiting builds by folder, in the order folders get their next turn.
+     */
+    private final LinkedHashMap<String, ArrayDeque<Pending>> pending = new LinkedHashMap<>();
+
+    private int depth;
+    private long released;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+    private ScheduledFuture<?> ticker;
+
+    /**
+     * Held while counting queued builds and letting more in, so that concurrent releases do not both use the room.
+     */
+    private final Object releaseLock = new Object();
+
+    public static AdmissionControl get() {
+        return INSTANCE;
+    }
+
+    static boolean isEnabled() {
+        return QUEUED_PER_IDLE_EXECUTOR > 0;
+    }
+
+    /**
+     * Schedules a build of {@code project} now, or later if too many triggered builds are queued already.
+     *
+     * @return the future of the queue item, or a future of it if the build waits, or null if the build cannot be
+     *      scheduled.
+     */
+    QueueTaskFuture<?> schedule(
+            Job<?, ?> project,
+            ParameterizedJobMixIn<?, ?> mixIn,
+            int quietPeriod,
+            List<Action> actions,
+            TaskListener listener) {
+        if (!isEnabled()) {
+            return mixIn.scheduleBuild2(quietPeriod, actions.toArray(new Action[0]));
+        }
+        Pending p = new Pending(project, mixIn, quietPeriod, actions);
+        int waiting;
+        synchronized (this) {
+            pending.computeIfAbsent(p.folder, k -> new ArrayDeque<>()).add(p);
+            waiting = ++depth;
+            if (ticker == null) {
+                ticker = Timer.get().scheduleWithFixedDelay(this::tick, 1, 1, TimeUnit.SECONDS);
+            }
+        }
+        release();
+        if (!p.future.released.isDone()) {
+            listener.getLogger()
+                    .println(Plugin.LOG_TAG + " Waiting for executors to free up before triggering "
+                            + project.getFullDisplayName() + ", " + waiting + " triggered builds waiting");
+        }
+        return p.future;
+    }
+
+    private static String getLabel(Job<?, ?> project, List<Action> actions) {
+        Label label = null;
+        for (Action a : actions) {
+            if (a instanceof LabelAssignmentAction && project instanceof Queue.Task) {
+                label = ((LabelAssignmentAction) a).getAssignedLabel((Queue.Task) project);
+                if (label != null) {
+                    break;
+                }
+            }
+        }
+        if (label == null && project instanceof Queue.Task) {
+            label = ((Queue.Task) project).getAssignedLabel();
+        }
+        return label != null ? label.getExpression() : "";
+    }
+
+    /**
+     * Lets waiting builds into the queue, as far as their label allows.
+     */
+    void release() {
+        if (!isEnabled()) {
+            releaseAll();
+            return;
+        }
+        synchronized (releaseLock) {
+            // builds let in and still queued, by label
+            Map<String, Integer> queued = new HashMap<>();
+            for (Queue.Item item : Queue.getInstance().getItems()) {
+                Admitted a = item.getAction(Admitted.class);
+                if (a != null) {
+                    queued.merge(a.label, 1, Integer::sum);
+                }
+            }
+
+            List<Pending> released = new ArrayList<>();
+            synchronized (this) {
+                Map<String, Integer> budgets = new HashMap<>();
+                boolean progress = true;
+                while (progress && !pending.isEmpty()) {
+                    progress = false;
+                    List<String> folders = new ArrayList<>(pending.keySet());
+                    for (String folder : folders) {
+                        ArrayDeque<Pending> q = pending.get(folder);
+                        Pending p = q.peek();
+                        int budget = budgets.computeIfAbsent(p.label, l -> getBudget(l) - queued.getOrDefault(l, 0));
+                        if (budget <= 0) {
+                            continue;
+                        }
+                        budgets.put(p.label, budget - 1);
+                        released.add(q.poll());
+                        // the folder's next build waits for the others' turn
+                        pending.remove(folder);
+                        if (!q.isEmpty()) {
+                            pending.put(folder, q);
+                        }
+                        progress = true;
+                    }
+                }
+                depth -= released.size();
+                stopTickerIfIdle();
+            }
+            for (Pending p : released) {
+                p.release();
+            }
+        }
+    }
+
+    /**
+     * {@link #release()} from the ticker, which would silently stop running on an exception while waiting builds
+     * still rely on it.
+     */
+    private void tick() {
+        try {
+            release();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to let waiting builds into the queue, retrying", e);
+        }
+    }
+
+    private static int getBudget(String expression) {
+        int idle = 0;
+        if (expression.isEmpty()) {
+            for (Computer c : Jenkins.get().getComputers()) {
+                if (c.isOnline()) {
+                    idle += c.countIdle();
+                }
+            }
+        } else {
+            Label label = Jenkins.get().getLabel(expression);
+            idle = label != null ? label.getIdleExecutors() : 0;
+        }
+        return Math.max(MIN_QUEUED_PER_LABEL, QUEUED_PER_IDLE_EXECUTOR * idle);
+    }
+
+    /**
+     * Lets all waiting builds into the queue.
+     */
+    void releaseAll() {
+        List<Pending> released = new ArrayList<>();
+        synchronized (this) {
+            for (ArrayDeque<Pending> q : pending.values()) {
+                released.addAll(q);
+            }
+            pending.clear();
+            depth = 0;
+            stopTickerIfIdle();
+        }
+        for (Pending p : released) {
+            p.release();
+        }
+    }
+
+    private synchronized boolean remove(Pending p) {
+        ArrayDeque<Pending> q = pending.get(p.folder);
+        if (q == null || !q.remove(p)) {
+            return false;
+        }
+        if (q.isEmpty()) {
+            pending.remove(p.folder);
+        }
+        depth--;
+        stopTickerIfIdle();
+        return true;
+    }
+
+    private void stopTickerIfIdle() {
+        if (pending.isEmpty() && ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+    }
+
+    private synchronized void recordWait(long millis) {
+        released++;
+        totalWaitMillis += millis;
+        maxWaitMillis = Math.max(maxWaitMillis, millis);
+    }
+
+    /**
+     * @return the number of builds waiting.
+     */
+    public synchronized int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return how long the longest waiting build has waited, in milliseconds.
+     */
+    public synchronized long getOldestWaitMillis() {
+        long oldest = 0;
+        long now = System.currentTimeMillis();
+        for (ArrayDeque<Pending> q : pending.values()) {
+            oldest = Math.max(oldest, now - q.peek().since);
+        }
+        return oldest;
+    }
+
+    /**
+     * @return the number of builds let into the queue after waiting.
+     */
+    public synchronized long getReleased() {
+        return released;
+    }
+
+    /**
+     * @return the average wait of the builds let into the queue, in milliseconds.
+     */
+    public synchronized long getAverageWaitMillis() {
+        return released > 0 ? totalWaitMillis / released : 0;
+    }
+
+    public synchronized long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Terminator
+    public static void flush() {
+        // the queue is saved, the buffer is not
+        get().releaseAll();
+    }
+
+    /**
+     * Marks the builds let into the queue, by the label they were counted for.
+     */
+    public static class Admitted extends InvisibleAction {
+        private final String label;
+
+        Admitted(String label) {
+            this.label = label;
+        }
+    }
+
+    private final class Pending {
+        private final String folder;
+        private final String label;
+        private final String name;
+        private final ParameterizedJobMixIn<?, ?> mixIn;
+        private final int quietPeriod;
+        private final List<Action> actions;
+        private final long since = System.currentTimeMillis();
+        private final PendingFuture future = new PendingFuture(this);
+
+        Pending(Job<?, ?> project, ParameterizedJobMixIn<?, ?> mixIn, int quietPeriod, List<Action> actions) {
+            this.folder = project.getParent().getFullName();
+            this.label = getLabel(project, actions);
+            this.name = project.getFullName();
+            this.mixIn = mixIn;
+            this.quietPeriod = quietPeriod;
+            this.actions = actions;
+        }
+
+        void release() {
+            recordWait(System.currentTimeMillis() - since);
+            List<Action> admitted = new ArrayList<>(actions);
+            admitted.add(new Admitted(label));
+            QueueTaskFuture<?> f = null;
+            try {
+                f = mixIn.scheduleBuild2(quietPeriod, admitted.toArray(new Action[0]));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to trigger " + name, e);
+            }
+            if (f == null) {
+                LOGGER.log(Level.WARNING, "Could not trigger {0} after waiting for executors", name);
+                future.released.cancel(false);
+            } else {
+                future.released.complete(f);
+            }
+        }
+
+        boolean cancel() {
+            if (remove(this)) {
+                future.released.cancel(false);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Future of a waiting build, following the future of the queue item once the build is let in.
+     */
+    private static final class PendingFuture implements QueueTaskFuture<Queue.Executable> {
+        private final Pending pending;
+        private final CompletableFuture<QueueTaskFuture<?>> released = new CompletableFuture<>();
+        private final Stage start = new Stage(true);
+        private final Stage completion = new Stage(false);
+
+        PendingFuture(Pending pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public Future<Queue.Executable> getStartCondition() {
+            return start;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return completion.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return completion.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        @Override
+        public Queue.Executable get() throws InterruptedException, ExecutionException {
+            return completion.get();
+        }
+
+        @Override
+        public Queue.Executable get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return completion.get(timeout, unit);
+        }
+
+        private final class Stage implements Future<Queue.Executable> {
+            private final boolean start;
+
+            Stage(boolean start) {
+                this.start = start;
+            }
+
+            private Future<? extends Queue.Executable> of(QueueTaskFuture<?> f) {
+                return start ? f.getStartCondition() : f;
+            }
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                if (pending.cancel()) {
+                    return true;
+                }
+                QueueTaskFuture<?> f = released.getNow(null);
+                return f != null && f.cancel(mayInterruptIfRunning);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                QueueTaskFuture<?> f = released.isCancelled() ? null : released.getNow(null);
+                return released.isCancelled() || (f != null && of(f).isCancelled());
+            }
+
+            @Override
+            public boolean isDone() {
+                QueueTaskFuture<?> f = released.isCancelled() ? null : released.getNow(null);
+                return released.isCancelled() || (f != null && of(f).isDone());
+            }
+
+            @Override
+            public Queue.Executable get() throws InterruptedException, ExecutionException {
+                return of(released.get()).get();
+            }
+
+            @Override
+            public Queue.Executable get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                long deadline = System.nanoTime() + unit.toNanos(timeout);
+                QueueTaskFuture<?> f = released.get(timeout, unit);
+                return of(f).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Releases waiting builds as soon as triggered builds leave the queue.
+     */
+    @Extension
+    public static class ListenerImpl extends QueueListener {
+        @Override
+        public void onLeft(Queue.LeftItem li) {
+            if (li.getAction(Admitted.class) != null) {
+                // not under the queue lock
+                Timer.get().submit(get()::release);
+            }
+        }
+    }
+
+    /**
+     * Exposes the buffer in the remote API, at {@code /parameterized-trigger-admission/api/json}.
+     */
+    @Extension
+    @ExportedBean
+    public static class Metrics implements RootAction {
+        @Override
+        public String getIconFileName() {
+            return null;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return null;
+        }
+
+        @Override
+        public String getUrlName() {
+            return "parameterized-trigger-admission";
+        }
+
+        public Api getApi() {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            return new Api(this);
+        }
+
+        @Exported
+        public int getDepth() {
+            return get().getDepth();
+        }
+
+        @Exported
+        public long getOldestWaitMillis() {
+            return get().getOldestWaitMillis();
+        }
+
+        @Exported
+        public long getReleased() {
+            return get().getReleased();
+        }
+
+        @Exported
+        public long getAverageWaitMillis() {
+            return get().getAverageWaitMillis();
+        }
+
+        @Exported
+        public long getMaxWaitMillis() {
+            return get().getMaxWaitMillis();
+        }
+    }
+}
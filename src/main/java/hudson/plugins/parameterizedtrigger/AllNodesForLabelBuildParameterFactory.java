@@ -0,0 +1,109 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.model.labels.LabelExpression;
+import hudson.util.FormValidation;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Triggers one build on each node matching a label expression, restricted to that node with a {@link NodeAction}.
+ */
+public class AllNodesForLabelBuildParameterFactory extends AbstractBuildParameterFactory {
+    private final String label;
+    private final boolean ignoreOfflineNodes;
+    private final boolean ignoreBusyNodes;
+
+    @DataBoundConstructor
+    public AllNodesForLabelBuildParameterFactory(String label, boolean ignoreOfflineNodes, boolean ignoreBusyNodes) {
+        this.label = Util.fixEmptyAndTrim(label);
+        this.ignoreOfflineNodes = ignoreOfflineNodes;
+        this.ignoreBusyNodes = ignoreBusyNodes;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean isIgnoreOfflineNodes() {
+        return ignoreOfflineNodes;
+    }
+
+    /**
+     * Whether nodes with no idle executor are left out.
+     */
+    public boolean isIgnoreBusyNodes() {
+        return ignoreBusyNodes;
+    }
+
+    @Override
+    public List<AbstractBuildParameters> getParameters(AbstractBuild<?, ?> build, TaskListener listener)
+            throws IOException, InterruptedException, AbstractBuildParameters.DontTriggerException {
+        String expression = label != null ? build.getEnvironment(listener).expand(label) : null;
+        Label l = Jenkins.get().getLabel(expression);
+        if (l == null) {
+            listener.getLogger().println(Plugin.LOG_TAG + " No label given, no node to build on");
+            throw new AbstractBuildParameters.DontTriggerException();
+        }
+
+        List<Node> nodes = new ArrayList<>(l.getNodes());
+        nodes.sort(Comparator.comparing(Node::getNodeName));
+        List<AbstractBuildParameters> result = new ArrayList<>(nodes.size());
+        int skipped = 0;
+        for (Node node : nodes) {
+            Computer c = node.toComputer();
+            boolean offline = c == null || c.isOffline();
+            if ((ignoreOfflineNodes && offline) || (ignoreBusyNodes && (offline || c.countIdle() == 0))) {
+                skipped++;
+                continue;
+            }
+            final Label nodeLabel = node.getSelfLabel();
+            result.add(new AbstractBuildParameters() {
+                @Override
+                public Action getAction(AbstractBuild<?, ?> build, TaskListener listener) {
+                    return new NodeAction(nodeLabel);
+                }
+            });
+        }
+        listener.getLogger()
+                .println(Plugin.LOG_TAG + " " + l.getDisplayName() + " matches " + nodes.size()
+                        + " nodes, building on " + result.size()
+                        + (skipped > 0 ? ", " + skipped + " offline or busy ones skipped" : ""));
+        if (result.isEmpty()) {
+            // a factory returning nothing is left out, which would build once on any node
+            throw new AbstractBuildParameters.DontTriggerException();
+        }
+        return result;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends AbstractBuildParameterFactoryDescriptor {
+        @Override
+        public String getDisplayName() {
+            return Messages.AllNodesForLabelBuildParameterFactory_DisplayName();
+        }
+
+        public FormValidation doCheckLabel(@QueryParameter String value) {
+            if (Util.fixEmptyAndTrim(value) == null) {
+                return FormValidation.error(Messages.AllNodesForLabelBuildParameterFactory_NoLabel());
+            }
+            if (value.contains("$")) {
+                // known when building only
+                return FormValidation.ok();
+            }
+            return LabelExpression.validate(value);
+        }
+    }
+}
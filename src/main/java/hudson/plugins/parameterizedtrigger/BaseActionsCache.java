@@ -0,0 +1,82 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.parameterizedtrigger.AbstractBuildParameters.DontTriggerException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Memoizes the base actions of a {@link BuildTriggerConfig} for the lifetime of a build.
+ *
+ * <p>
+ * When triggered through the dependency graph, {@link ParameterizedDependency#shouldTriggerBuild} is called once
+ * per downstream project, but the base actions only depend on the upstream build and the config.
+ * Computing them once means parameter files are read and environments expanded once,
+ * however many projects the config triggers.
+ */
+@Restricted(NoExternalUse.class)
+public final class BaseActionsCache {
+
+    private static final Map<Run<?, ?>, Map<BuildTriggerConfig, Outcome>> CACHE = new WeakHashMap<>();
+
+    private BaseActionsCache() {}
+
+    /**
+     * @return the (unmodifiable) base actions of the config for the build, computed on first use.
+     * @throws DontTriggerException if the config decided not to trigger for this build.
+     */
+    static List<Action> getBaseActions(BuildTriggerConfig config, AbstractBuild<?, ?> build, TaskListener listener)
+            throws IOException, InterruptedException, DontTriggerException {
+        Outcome outcome;
+        synchronized (CACHE) {
+            outcome = CACHE.computeIfAbsent(build, k -> new IdentityHashMap<>()).get(config);
+        }
+        if (outcome == null) {
+            try {
+                outcome = new Outcome(Collections.unmodifiableList(config.getBaseActions(build, listener)));
+            } catch (DontTriggerException e) {
+                outcome = new Outcome(null);
+            }
+            synchronized (CACHE) {
+                CACHE.computeIfAbsent(build, k -> new IdentityHashMap<>()).put(config, outcome);
+            }
+        }
+        if (outcome.actions == null) {
+            throw new DontTriggerException();
+        }
+        return outcome.actions;
+    }
+
+    private static final class Outcome {
+        /** null if the config threw {@link DontTriggerException}. */
+        private final List<Action> actions;
+
+        Outcome(List<Action> actions) {
+            this.actions = actions;
+        }
+    }
+
+    /**
+     * Downstream builds are scheduled before the upstream is finalized, so the entries can go then.
+     */
+    @Extension
+    public static final class CleanupListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            synchronized (CACHE) {
+                CACHE.remove(run);
+            }
+        }
+    }
+}
@@ -2,12 +2,16 @@ package hudson.plugins.parameterizedtrigger;
 
 import hudson.Extension;
 import hudson.FilePath;
+import hudson.Util;
 import hudson.model.AbstractBuild;
 import hudson.model.Action;
 import hudson.model.FileParameterValue;
+import hudson.model.Node;
 import hudson.model.ParametersAction;
 import hudson.model.TaskListener;
 import hudson.plugins.parameterizedtrigger.FileBuildParameterFactory.NoFilesFoundEnum;
+import hudson.slaves.AbstractCloudSlave;
+import hudson.slaves.EphemeralNode;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
@@ -26,12 +30,19 @@ public class BinaryFileParameterFactory extends AbstractBuildParameterFactory {
     private final String parameterName;
     private final String filePattern;
     private final NoFilesFoundEnum noFilesFoundAction;
+    private final boolean keepOnNode;
 
     @DataBoundConstructor
-    public BinaryFileParameterFactory(String parameterName, String filePattern, NoFilesFoundEnum noFilesFoundAction) {
+    public BinaryFileParameterFactory(
+            String parameterName, String filePattern, NoFilesFoundEnum noFilesFoundAction, boolean keepOnNode) {
         this.parameterName = parameterName;
         this.filePattern = filePattern;
         this.noFilesFoundAction = noFilesFoundAction;
+        this.keepOnNode = keepOnNode;
+    }
+
+    public BinaryFileParameterFactory(String parameterName, String filePattern, NoFilesFoundEnum noFilesFoundAction) {
+        this(parameterName, filePattern, noFilesFoundAction, false);
     }
 
     public BinaryFileParameterFactory(String parameterName, String filePattern) {
@@ -50,6 +61,14 @@ public class BinaryFileParameterFactory extends AbstractBuildParameterFactory {
         return noFilesFoundAction;
     }
 
+    /**
+     * Whether the files stay on the node of the triggering build, see {@link NodeLocalFileParameterValue}. Files of
+     * builds on cloud agents and other nodes that may go away are stored on the controller all the same.
+     */
+    public boolean isKeepOnNode() {
+        return keepOnNode;
+    }
+
     @Override
     public List<AbstractBuildParameters> getParameters(AbstractBuild<?, ?> build, TaskListener listener)
             throws IOException, InterruptedException, AbstractBuildParameters.DontTriggerException {
@@ -62,12 +81,21 @@ public class BinaryFileParameterFactory extends AbstractBuildParameterFactory {
             // save them into the master because FileParameterValue might need files after the agent workspace have
             // disappeared/reused
             FilePath target = new FilePath(build.getRootDir()).child("parameter-files");
-            int n = workspace.copyRecursiveTo(getFilePattern(), target);
+            WorkspaceGlob.Listing listing = workspace.act(new WorkspaceGlob.ListFiles(getFilePattern(), true));
+            listener.getLogger()
+                    .println(Plugin.LOG_TAG + " Found " + listing.paths.size() + " files matching "
+                            + getFilePattern() + " in " + listing.scanMillis + " ms");
 
-            if (n == 0) {
+            if (listing.paths.isEmpty()) {
                 noFilesFoundAction.failCheck(listener);
+            } else if (keepOnNode && canKeepOn(build.getBuiltOn(), listener)) {
+                result.addAll(getNodeLocalParameters(build, workspace, listing, listener));
             } else {
-                for (final FilePath f : target.list(getFilePattern())) {
+                int sent = BinaryParameterStore.get().store(workspace, listing, new File(target.getRemote()));
+                listener.getLogger()
+                        .println(Plugin.LOG_TAG + " Sent " + sent + " of them, the others were stored already");
+                for (String path : listing.paths) {
+                    final FilePath f = target.child(path);
                     LOGGER.fine("Triggering build with " + f.getName());
 
                     result.add(new AbstractBuildParameters() {
@@ -76,8 +104,8 @@ public class BinaryFileParameterFactory extends AbstractBuildParameterFactory {
                                 throws IOException, InterruptedException, DontTriggerException {
                             assert f.getChannel()
                                     == null; // we copied files locally. This file must be local to the master
-                            FileParameterValue fv =
-                                    new FileParameterValue(parameterName, new File(f.getRemote()), f.getName());
+                            FileParameterValue fv = new StoredFileParameterValue(
+                                    parameterName, new File(f.getRemote()), f.getName());
 
                             if ($setLocation != null) {
                                 try {
@@ -98,6 +126,51 @@ public class BinaryFileParameterFactory extends AbstractBuildParameterFactory {
         return result;
     }
 
+    /**
+     * @return whether the files can stay on {@code node}, false if it may be gone before the triggered builds use
+     *      them.
+     */
+    private static boolean canKeepOn(Node node, TaskListener listener) {
+        if (node != null && !(node instanceof EphemeralNode) && !(node instanceof AbstractCloudSlave)) {
+            return true;
+        }
+        listener.getLogger()
+                .println(Plugin.LOG_TAG + " Not keeping the files on "
+                        + (node != null ? node.getDisplayName() : "an unknown node")
+                        + ", which may go away, storing them on the controller");
+        return false;
+    }
+
+    private List<AbstractBuildParameters> getNodeLocalParameters(
+            AbstractBuild<?, ?> build, FilePath workspace, WorkspaceGlob.Listing listing, TaskListener listener)
+            throws IOException, InterruptedException {
+        Node node = build.getBuiltOn();
+        FilePath root = node != null ? node.getRootPath() : null;
+        if (root == null) {
+            throw new IOException("Cannot stage files, the node of " + build.getFullDisplayName() + " is offline");
+        }
+        List<String> staged = workspace.act(new NodeLocalFileParameterValue.Stage(
+                listing.paths, listing.digests, root.child(NodeLocalFileParameterValue.STAGING_DIR).getRemote()));
+        String nodeName = Util.fixNull(build.getBuiltOnStr());
+        listener.getLogger()
+                .println(Plugin.LOG_TAG + " Staged " + staged.size() + " files on "
+                        + (nodeName.isEmpty() ? "the built-in node" : nodeName));
+
+        List<AbstractBuildParameters> result = new ArrayList<>();
+        for (int i = 0; i < staged.size(); i++) {
+            final String path = staged.get(i);
+            final String fileName = new File(listing.paths.get(i)).getName();
+            result.add(new AbstractBuildParameters() {
+                @Override
+                public Action getAction(AbstractBuild<?, ?> build, TaskListener listener) {
+                    return new ParametersAction(
+                            new NodeLocalFileParameterValue(parameterName, nodeName, path, fileName));
+                }
+            });
+        }
+        return result;
+    }
+
     @Extension
     public static class DescriptorImpl extends AbstractBuildParameterFactoryDescriptor {
         @Override
@@ -0,0 +1,292 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Content-addressed store of the files passed by {@link BinaryFileParameterFactory}, in {@code JENKINS_HOME}.
+ *
+ * <p>
+ * Files are hashed on the agent, and only those whose content is not stored yet are sent to the controller. The
+ * agent proves it holds the content of the others by hashing it again with a random salt, so that knowing a digest
+ * is not enough to get a stored file into a triggered build.
+ * Builds get hard links to the stored content rather than copies, so the link count of a stored file tells how many
+ * builds still refer to it. {@link Cleanup} deletes the files no build refers to any more. Once a hard link fails,
+ * as it does across file systems, files are copied to the builds straight from the workspace, since the store would
+ * save nothing.
+ */
+@Restricted(NoExternalUse.class)
+public final class BinaryParameterStore {
+    private static final Logger LOGGER = Logger.getLogger(BinaryParameterStore.class.getName());
+
+    /**
+     * Unreferenced files are kept this long after their last use, to be found by the next triggers.
+     */
+    private static final long RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(
+            Long.getLong(BinaryParameterStore.class.getName() + ".retentionMinutes", 60));
+
+    private static final String TMP = "tmp";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Set once creating a hard link failed.
+     */
+    private static volatile boolean linksUnsupported;
+
+    private final File root;
+
+    BinaryParameterStore(File root) {
+        this.root = root;
+    }
+
+    public static BinaryParameterStore get() {
+        return new BinaryParameterStore(new File(Jenkins.get().getRootDir(), "parameterized-trigger-files"));
+    }
+
+    File getFile(String digest) {
+        return new File(new File(root, digest.substring(0, 2)), digest);
+    }
+
+    /**
+     * Sends the files of {@code listing} not stored yet from {@code workspace}, and links each file under
+     * {@code target}, at its path relative to the workspace.
+     *
+     * @param listing files to store, with their digests.
+     * @return the number of files sent.
+     */
+    int store(FilePath workspace, WorkspaceGlob.Listing listing, File target) throws IOException, InterruptedException {
+        if (linksUnsupported) {
+            workspace.copyRecursiveTo(
+                    new WorkspaceGlob.Paths(listing.paths), new FilePath(target), "parameter files");
+            return listing.paths.size();
+        }
+        // digest of each path, the paths whose content must be sent, and those whose content is stored already
+        Map<String, String> digests = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> claimed = new ArrayList<>();
+        Set<String> sent = new HashSet<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < listing.paths.size(); i++) {
+            String path = listing.paths.get(i);
+            String digest = listing.digests.get(i);
+            if (!DIGEST.matcher(digest).matches()) {
+                throw new IOException("Invalid digest of " + path + ": " + digest);
+            }
+            digests.put(path, digest);
+            // touching a stored file keeps it from being cleaned up until it is linked
+            if (getFile(digest).setLastModified(now)) {
+                claimed.add(path);
+            } else if (sent.add(digest)) {
+                missing.add(path);
+            }
+        }
+
+        if (!claimed.isEmpty()) {
+            byte[] salt = new byte[32];
+            RANDOM.nextBytes(salt);
+            List<String> proofs = workspace.act(new SaltedDigests(claimed, salt));
+            for (int i = 0; i < claimed.size(); i++) {
+                String path = claimed.get(i);
+                String expected = saltedSha256(salt, getFile(digests.get(path)).toPath());
+                if (expected == null || !expected.equals(proofs.get(i))) {
+                    LOGGER.log(Level.WARNING, "Content of " + path + " does not match its digest, sending it");
+                    missing.add(path);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            File tmpRoot = new File(root, TMP);
+            Files.createDirectories(tmpRoot.toPath());
+            Path tmp = Files.createTempDirectory(tmpRoot.toPath(), "upload");
+            try {
+                workspace.copyRecursiveTo(
+                        new WorkspaceGlob.Paths(missing), new FilePath(tmp.toFile()), "parameter files");
+                for (String path : missing) {
+                    Path f = tmp.resolve(path);
+                    // the agent is not trusted to name the content it sends
+                    String digest;
+                    try (InputStream in = Files.newInputStream(f)) {
+                        digest = ParameterizedTriggerUtils.sha256(in);
+                    }
+                    digests.put(path, digest);
+                    Path stored = getFile(digest).toPath();
+                    Files.createDirectories(stored.getParent());
+                    try {
+                        Files.move(f, stored, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // stored concurrently by another build
+                    }
+                }
+            } finally {
+                Util.deleteRecursive(tmp.toFile());
+            }
+        }
+
+        for (Map.Entry<String, String> e : digests.entrySet()) {
+            File stored = getFile(e.getValue());
+            if (!stored.isFile()) {
+                throw new IOException(e.getKey() + " changed while it was being copied");
+            }
+            link(stored, new File(target, e.getKey()));
+        }
+        return missing.size();
+    }
+
+    /**
+     * @return hex SHA-256 of {@code salt} followed by the content of {@code f}, or null if it cannot be read.
+     */
+    static String saltedSha256(byte[] salt, Path f) {
+        MessageDigest md = ParameterizedTriggerUtils.newSha256();
+        md.update(salt);
+        try (InputStream in = Files.newInputStream(f)) {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) >= 0) {
+                md.update(buf, 0, n);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return Util.toHexString(md.digest());
+    }
+
+    /**
+     * {@link #saltedSha256} of workspace files, null for those that cannot be read.
+     */
+    private static final class SaltedDigests extends MasterToSlaveFileCallable<ArrayList<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ArrayList<String> paths;
+        private final byte[] salt;
+
+        SaltedDigests(List<String> paths, byte[] salt) {
+            this.paths = new ArrayList<>(paths);
+            this.salt = salt;
+        }
+
+        @Override
+        public ArrayList<String> invoke(File dir, VirtualChannel channel) {
+            ArrayList<String> r = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                r.add(saltedSha256(salt, new File(dir, path).toPath()));
+            }
+            return r;
+        }
+    }
+
+    /**
+     * Makes {@code to} a hard link to {@code from}, or a copy of it where hard links are not supported.
+     */
+    static void link(File from, File to) throws IOException {
+        Path dst = to.toPath();
+        Files.createDirectories(dst.getParent());
+        Files.deleteIfExists(dst);
+        try {
+            Files.createLink(dst, from.toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            if (!linksUnsupported) {
+                linksUnsupported = true;
+                LOGGER.log(
+                        Level.WARNING,
+                        "Cannot link " + to + " to " + from + ", parameter files are copied to each build from now on"
+                                + " and no longer shared",
+                        e);
+            } else {
+                LOGGER.log(Level.FINE, "Cannot link " + to + " to " + from + ", copying it", e);
+            }
+            Files.copy(from.toPath(), dst, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Deletes the stored files that no build links to and that were not used within {@code retentionMillis}.
+     *
+     * @return the number of files deleted.
+     */
+    int cleanup(long retentionMillis) throws IOException {
+        if (!root.isDirectory()) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        int deleted = 0;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root.toPath())) {
+            for (Path dir : dirs) {
+                if (dir.getFileName().toString().equals(TMP) || !Files.isDirectory(dir)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                    for (Path f : files) {
+                        if (getLinkCount(f) <= 1
+                                && Files.getLastModifiedTime(f).toMillis() < cutoff
+                                && Files.deleteIfExists(f)) {
+                            deleted++;
+                        }
+                    }
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * @return the number of hard links to {@code f}, 1 if the file system does not tell.
+     */
+    private static int getLinkCount(Path f) throws IOException {
+        try {
+            return ((Number) Files.getAttribute(f, "unix:nlink")).intValue();
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            // without hard links, builds got copies
+            return 1;
+        }
+    }
+
+    @Extension
+    public static class Cleanup extends AsyncPeriodicWork {
+        public Cleanup() {
+            super("Parameterized Trigger file store cleanup");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return HOUR;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException {
+            int deleted = get().cleanup(RETENTION_MILLIS);
+            listener.getLogger().println("Deleted " + deleted + " files no build refers to");
+        }
+    }
+}
@@ -27,7 +27,11 @@ import org.kohsuke.stapler.DataBoundConstructor;
  */
 public class BlockableBuildTriggerConfig extends BuildTriggerConfig {
     private final BlockingBehaviour block;
+    /**
+     * @deprecated unused, see {@link AllNodesForLabelBuildParameterFactory}.
+     */
     // Field is unused, but would change public API if it were deleted
+    @Deprecated
     @SuppressFBWarnings(value = "UUF_UNUSED_PUBLIC_OR_PROTECTED_FIELD", justification = "Part of the public API")
     public boolean buildAllNodesWithLabel;
 
@@ -37,13 +41,43 @@ public class BlockableBuildTriggerConfig extends BuildTriggerConfig {
         this.block = block;
     }
 
-    @DataBoundConstructor
     public BlockableBuildTriggerConfig(
             String projects,
             BlockingBehaviour block,
             List<AbstractBuildParameterFactory> configFactories,
             List<AbstractBuildParameters> configs) {
-        super(projects, ResultCondition.ALWAYS, false, configFactories, configs, false);
+        this(projects, block, configFactories, configs, null, false, null);
+    }
+
+    public BlockableBuildTriggerConfig(
+            String projects,
+            BlockingBehaviour block,
+            List<AbstractBuildParameterFactory> configFactories,
+            List<AbstractBuildParameters> configs,
+            CombinationStrategy combinationStrategy,
+            boolean deduplicate) {
+        this(projects, block, configFactories, configs, combinationStrategy, deduplicate, null);
+    }
+
+    @DataBoundConstructor
+    public BlockableBuildTriggerConfig(
+            String projects,
+            BlockingBehaviour block,
+            List<AbstractBuildParameterFactory> configFactories,
+            List<AbstractBuildParameters> configs,
+            CombinationStrategy combinationStrategy,
+            boolean deduplicate,
+            BuildAvoidance avoidance) {
+        super(
+                projects,
+                ResultCondition.ALWAYS,
+                false,
+                configFactories,
+                configs,
+                false,
+                combinationStrategy,
+                deduplicate,
+                avoidance);
         this.block = block;
     }
 
@@ -75,7 +109,15 @@ public class BlockableBuildTriggerConfig extends BuildTriggerConfig {
             AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
             throws InterruptedException, IOException {
         ListMultimap<Job, QueueTaskFuture<AbstractBuild>> futures = super.perform3(build, launcher, listener);
-        if (block == null) return ArrayListMultimap.create();
+        if (block == null) {
+            // nobody waits for these, record the reused runs here
+            for (QueueTaskFuture<?> future : futures.values()) {
+                if (future instanceof BuildAvoidance.ReusedBuild) {
+                    ((BuildAvoidance.ReusedBuild) future).record(build);
+                }
+            }
+            return ArrayListMultimap.create();
+        }
         return futures;
     }
 
@@ -103,6 +145,11 @@ public class BlockableBuildTriggerConfig extends BuildTriggerConfig {
         }
     }
 
+    /**
+     * @deprecated always looked up a fixed label, use {@link AllNodesForLabelBuildParameterFactory} to build on every
+     *      node of a label.
+     */
+    @Deprecated
     public Collection<Node> getNodes() {
         Label label = Jenkins.get().getLabel("asrt");
         if (label == null) return Collections.emptyList();
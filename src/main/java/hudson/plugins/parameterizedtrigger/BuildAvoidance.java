@@ -0,0 +1,237 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.console.HyperlinkNote;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Action;
+import hudson.model.Descriptor;
+import hudson.model.InvisibleAction;
+import hudson.model.Job;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.queue.QueueTaskFuture;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Reuses a recent successful run of the triggered project instead of triggering a new one,
+ * when it had the same parameters and, optionally, the same input files.
+ *
+ * <p>
+ * Runs triggered with avoidance enabled carry a {@link KeyAction}, and are recorded in {@link BuildAvoidanceIndex}
+ * when they succeed. Only parameter sets made of plain values (strings, booleans, numbers) and with no other
+ * action, such as a node or a matrix subset, can be reused.
+ */
+public class BuildAvoidance extends AbstractDescribableImpl<BuildAvoidance> {
+    /**
+     * Ant pattern of files in the triggering workspace whose content is part of the key, blank for none.
+     */
+    private final String inputFingerprints;
+
+    /**
+     * Runs older than this many minutes are not reused.
+     */
+    private final int maxAge;
+
+    @DataBoundConstructor
+    public BuildAvoidance(String inputFingerprints, int maxAge) {
+        this.inputFingerprints = Util.fixEmptyAndTrim(inputFingerprints);
+        this.maxAge = maxAge;
+    }
+
+    public String getInputFingerprints() {
+        return inputFingerprints;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Digests the input files of {@code build}, once per trigger.
+     *
+     * @return digest of the matching files and their content, or the empty string when there are no inputs.
+     */
+    String digestInputs(AbstractBuild<?, ?> build, TaskListener listener) throws IOException, InterruptedException {
+        if (inputFingerprints == null) {
+            return "";
+        }
+        FilePath workspace = build.getWorkspace();
+        if (workspace == null) {
+            throw new IOException("Cannot fingerprint " + inputFingerprints + ", the build has no workspace");
+        }
+        String pattern = build.getEnvironment(listener).expand(inputFingerprints);
+        WorkspaceGlob.Listing listing = workspace.act(new WorkspaceGlob.ListFiles(pattern, true));
+        StringBuilder inputs = new StringBuilder();
+        for (int i = 0; i < listing.paths.size(); i++) {
+            inputs.append(listing.paths.get(i)).append('=').append(listing.digests.get(i)).append('\n');
+        }
+        return inputs.toString();
+    }
+
+    /**
+     * @return the key of a request to trigger {@code project} with {@code actions}, or null if it cannot be reused.
+     */
+    static String getKey(Job<?, ?> project, List<Action> actions, String inputs) {
+        List<ParameterValue> values = new ArrayList<>();
+        for (Action a : actions) {
+            if (!(a instanceof ParametersAction)) {
+                return null;
+            }
+            values.addAll(((ParametersAction) a).getParameters());
+        }
+        values.sort(Comparator.comparing(ParameterValue::getName));
+
+        MessageDigest digest = ParameterizedTriggerUtils.newSha256();
+        update(digest, project.getFullName());
+        for (ParameterValue v : values) {
+            Object value = v.getValue();
+            if (!(value instanceof String || value instanceof Boolean || value instanceof Number)) {
+                return null;
+            }
+            update(digest, v.getClass().getName());
+            update(digest, v.getName());
+            update(digest, value.toString());
+        }
+        update(digest, inputs);
+        return Util.toHexString(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        // length prefixed, so that no two sequences of strings give the same bytes
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    /**
+     * @return a completed future for the run recorded for {@code key}, or null if there is none to reuse.
+     */
+    QueueTaskFuture reuse(String key, Job<?, ?> project, TaskListener listener) {
+        BuildAvoidanceIndex index = BuildAvoidanceIndex.get();
+        BuildAvoidanceIndex.Entry e = index.lookup(key, TimeUnit.MINUTES.toMillis(maxAge));
+        if (e == null || !e.job.equals(project.getFullName())) {
+            return null;
+        }
+        Run<?, ?> run = project.getBuildByNumber(e.number);
+        if (run == null || run.getResult() != Result.SUCCESS || !(run instanceof Queue.Executable)) {
+            index.remove(key);
+            return null;
+        }
+        listener.getLogger()
+                .println(Plugin.LOG_TAG + " Reusing "
+                        + HyperlinkNote.encodeTo('/' + run.getUrl(), run.getFullDisplayName())
+                        + ", it succeeded with the same parameters and inputs");
+        return new ReusedBuild((Queue.Executable) run);
+    }
+
+    /**
+     * Marks a run triggered with build avoidance, to record it once it succeeds.
+     */
+    public static class KeyAction extends InvisibleAction {
+        private final String key;
+
+        public KeyAction(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Future of a run reused instead of triggering a new one, started and completed already.
+     */
+    public static final class ReusedBuild implements QueueTaskFuture<Queue.Executable> {
+        private final CompletableFuture<Queue.Executable> future;
+
+        ReusedBuild(Queue.Executable run) {
+            this.future = CompletableFuture.completedFuture(run);
+        }
+
+        public Run<?, ?> getRun() {
+            return (Run<?, ?>) future.getNow(null);
+        }
+
+        /**
+         * Records the reused run as triggered by {@code build}, which no upstream cause of the run tells.
+         */
+        void record(AbstractBuild<?, ?> build) {
+            Run<?, ?> run = getRun();
+            BuildInfoExporterAction.addBuildInfoExporterAction(
+                    build, run.getParent().getFullName(), run.getNumber(), run.getResult());
+        }
+
+        @Override
+        public Future<Queue.Executable> getStartCondition() {
+            return future;
+        }
+
+        @Override
+        public Queue.Executable waitForStart() {
+            return future.getNow(null);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public Queue.Executable get() {
+            return future.getNow(null);
+        }
+
+        @Override
+        public Queue.Executable get(long timeout, TimeUnit unit) {
+            return future.getNow(null);
+        }
+    }
+
+    @Extension
+    public static class RecorderImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, TaskListener listener) {
+            KeyAction a = run.getAction(KeyAction.class);
+            if (a != null && run.getResult() == Result.SUCCESS) {
+                BuildAvoidanceIndex.get().put(a.getKey(), run.getParent().getFullName(), run.getNumber());
+            }
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<BuildAvoidance> {
+        @Override
+        public String getDisplayName() {
+            return Messages.BuildAvoidance_DisplayName();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.XmlFile;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Recent successful triggered runs by {@link BuildAvoidance} key, least recently used first.
+ *
+ * <p>
+ * The index is bounded by number of entries and persisted in {@code JENKINS_HOME}, a few seconds after it changes,
+ * so that avoidance survives a restart.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public final class BuildAvoidanceIndex {
+    private static final Logger LOGGER = Logger.getLogger(BuildAvoidanceIndex.class.getName());
+
+    private static final int MAX_ENTRIES =
+            Integer.getInteger(BuildAvoidanceIndex.class.getName() + ".maxEntries", 10000);
+
+    private final XmlFile file;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean saveScheduled;
+
+    public BuildAvoidanceIndex() {
+        File file = new File(Jenkins.get().getRootDir(), BuildAvoidanceIndex.class.getName() + ".xml");
+        this.file = new XmlFile(Jenkins.XSTREAM2, file);
+        load();
+    }
+
+    public static BuildAvoidanceIndex get() {
+        return ExtensionList.lookupSingleton(BuildAvoidanceIndex.class);
+    }
+
+    /**
+     * @return the entry recorded for {@code key} within {@code maxAgeMillis}, or null.
+     */
+    synchronized Entry lookup(String key, long maxAgeMillis) {
+        Entry e = entries.get(key);
+        if (e != null && System.currentTimeMillis() - e.timestamp > maxAgeMillis) {
+            return null;
+        }
+        return e;
+    }
+
+    synchronized void put(String key, String job, int number) {
+        entries.put(key, new Entry(key, job, number, System.currentTimeMillis()));
+        trim();
+        scheduleSave();
+    }
+
+    /**
+     * Removes the least recently used entries beyond {@link #MAX_ENTRIES}.
+     */
+    private void trim() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > MAX_ENTRIES && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    synchronized void remove(String key) {
+        if (entries.remove(key) != null) {
+            scheduleSave();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        scheduleSave();
+    }
+
+    private void scheduleSave() {
+        if (!saveScheduled) {
+            saveScheduled = true;
+            Timer.get().schedule(this::save, 5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void save() {
+        List<Entry> snapshot;
+        synchronized (this) {
+            saveScheduled = false;
+            snapshot = new ArrayList<>(entries.values());
+        }
+        try {
+            file.write(snapshot);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + file, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            for (Entry e : (List<Entry>) file.read()) {
+                entries.put(e.key, e);
+            }
+            // saved with a larger limit
+            trim();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to load " + file + ", starting with an empty index", e);
+            entries.clear();
+        }
+    }
+
+    static final class Entry {
+        final String key;
+        final String job;
+        final int number;
+        final long timestamp;
+
+        Entry(String key, String job, int number, long timestamp) {
+            this.key = key;
+            this.job = job;
+            this.number = number;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -10,7 +10,6 @@ import hudson.model.AbstractProject;
 import hudson.model.Action;
 import hudson.model.BuildListener;
 import hudson.model.DependencyGraph;
-import hudson.model.Item;
 import hudson.model.ItemGroup;
 import hudson.model.Job;
 import hudson.model.queue.QueueTaskFuture;
@@ -36,9 +35,19 @@ public class BuildTrigger extends Notifier implements DependencyDeclarer {
 
     private final ArrayList<BuildTriggerConfig> configs;
 
+    /**
+     * Whether to queue the triggered builds when this build starts, see {@link PreQueueGate}.
+     */
+    private final boolean preQueue;
+
     @DataBoundConstructor
-    public BuildTrigger(List<BuildTriggerConfig> configs) {
+    public BuildTrigger(List<BuildTriggerConfig> configs, boolean preQueue) {
         this.configs = new ArrayList<>(Util.fixNull(configs));
+        this.preQueue = preQueue;
+    }
+
+    public BuildTrigger(List<BuildTriggerConfig> configs) {
+        this(configs, false);
     }
 
     public BuildTrigger(BuildTriggerConfig... configs) {
@@ -49,6 +58,10 @@ public class BuildTrigger extends Notifier implements DependencyDeclarer {
         return configs;
     }
 
+    public boolean isPreQueue() {
+        return preQueue;
+    }
+
     @Override
     public boolean needsToRunAfterFinalized() {
         return true;
@@ -157,18 +170,23 @@ public class BuildTrigger extends Notifier implements DependencyDeclarer {
     public void buildDependencyGraph(AbstractProject owner, DependencyGraph graph) {
         if (!canDeclare(owner)) return;
 
+        List<AbstractProject> children = null;
         for (BuildTriggerConfig config : configs) {
-            List<AbstractProject> projectList = config.getProjectList(owner.getParent(), null);
-            for (AbstractProject project : projectList) {
-                if (config.isTriggerFromChildProjects() && owner instanceof ItemGroup) {
-                    ItemGroup<Item> parent = (ItemGroup) owner;
-                    for (Item item : parent.getItems()) {
-                        if (item instanceof AbstractProject) {
-                            AbstractProject child = (AbstractProject) item;
-                            ParameterizedDependency.add(child, project, config, graph);
-                        }
+            List<AbstractProject> projectList = config.getDependencyGraphProjectList(owner.getParent());
+            if (projectList.isEmpty()) {
+                continue;
+            }
+            if (config.isTriggerFromChildProjects() && owner instanceof ItemGroup) {
+                if (children == null) {
+                    children = Util.filter(((ItemGroup<?>) owner).getItems(), AbstractProject.class);
+                }
+                for (AbstractProject project : projectList) {
+                    for (AbstractProject child : children) {
+                        ParameterizedDependency.add(child, project, config, graph);
                     }
-                } else {
+                }
+            } else {
+                for (AbstractProject project : projectList) {
                     ParameterizedDependency.add(owner, project, config, graph);
                 }
             }
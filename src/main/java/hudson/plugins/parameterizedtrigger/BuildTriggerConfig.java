@@ -22,9 +22,11 @@ import hudson.model.Item;
 import hudson.model.ItemGroup;
 import hudson.model.Items;
 import hudson.model.Job;
+import hudson.model.ParameterValue;
 import hudson.model.ParametersAction;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
 import hudson.model.queue.QueueTaskFuture;
 import hudson.model.queue.Tasks;
 import hudson.plugins.parameterizedtrigger.AbstractBuildParameters.DontTriggerException;
@@ -36,11 +38,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
@@ -54,6 +59,7 @@ import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.DoNotUse;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
 public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
@@ -68,19 +74,88 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
     private final boolean triggerWithNoParameters;
     private final boolean triggerFromChildProjects;
 
+    /**
+     * How the values of {@link #configFactories} are combined, null for all the combinations.
+     */
+    private final CombinationStrategy combinationStrategy;
+
+    /**
+     * Whether parameter sets identical to one already triggered are mapped onto that build.
+     */
+    private final boolean deduplicate;
+
+    /**
+     * Reuses recent identical runs instead of triggering, null to always trigger.
+     */
+    private BuildAvoidance avoidance;
+
+    /**
+     * Bumped whenever an item event may change how project names resolve.
+     * See {@link #getDependencyGraphProjectList(ItemGroup)}.
+     */
+    private static final AtomicLong ITEMS_GENERATION = new AtomicLong();
+
+    private transient volatile ResolvedProjects resolvedProjects;
+
     public BuildTriggerConfig(
             String projects,
             ResultCondition condition,
             boolean triggerWithNoParameters,
             List<AbstractBuildParameterFactory> configFactories,
             List<AbstractBuildParameters> configs,
-            boolean triggerFromChildProjects) {
+            boolean triggerFromChildProjects,
+            CombinationStrategy combinationStrategy,
+            boolean deduplicate,
+            BuildAvoidance avoidance) {
         this.projects = projects;
         this.condition = condition;
         this.triggerWithNoParameters = triggerWithNoParameters;
         this.configFactories = configFactories;
         this.configs = Util.fixNull(configs);
         this.triggerFromChildProjects = triggerFromChildProjects;
+        this.combinationStrategy = combinationStrategy;
+        this.deduplicate = deduplicate;
+        this.avoidance = avoidance;
+    }
+
+    public BuildTriggerConfig(
+            String projects,
+            ResultCondition condition,
+            boolean triggerWithNoParameters,
+            List<AbstractBuildParameterFactory> configFactories,
+            List<AbstractBuildParameters> configs,
+            boolean triggerFromChildProjects,
+            CombinationStrategy combinationStrategy,
+            boolean deduplicate) {
+        this(
+                projects,
+                condition,
+                triggerWithNoParameters,
+                configFactories,
+                configs,
+                triggerFromChildProjects,
+                combinationStrategy,
+                deduplicate,
+                null);
+    }
+
+    public BuildTriggerConfig(
+            String projects,
+            ResultCondition condition,
+            boolean triggerWithNoParameters,
+            List<AbstractBuildParameterFactory> configFactories,
+            List<AbstractBuildParameters> configs,
+            boolean triggerFromChildProjects) {
+        this(
+                projects,
+                condition,
+                triggerWithNoParameters,
+                configFactories,
+                configs,
+                triggerFromChildProjects,
+                null,
+                false,
+                null);
     }
 
     @Deprecated
@@ -151,6 +226,23 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
         return triggerFromChildProjects;
     }
 
+    public boolean isDeduplicate() {
+        return deduplicate;
+    }
+
+    public BuildAvoidance getAvoidance() {
+        return avoidance;
+    }
+
+    @DataBoundSetter
+    public void setAvoidance(BuildAvoidance avoidance) {
+        this.avoidance = avoidance;
+    }
+
+    public CombinationStrategy getCombinationStrategy() {
+        return combinationStrategy != null ? combinationStrategy : new CombinationStrategy.Cartesian();
+    }
+
     /**
      * @deprecated
      *      Use {@link #getJobs(ItemGroup, EnvVars)}
@@ -173,6 +265,30 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
         return Util.filter(getJobs(context, env), AbstractProject.class);
     }
 
+    /**
+     * Get the statically configured projects for the dependency graph.
+     *
+     * The dependency graph is rebuilt after every job save, so the resolved list is memoized
+     * until an item is created, copied, moved or deleted.
+     * Only the {@link ACL#SYSTEM2} view is memoized, as resolution honours {@link Item#READ}.
+     *
+     * @param context
+     *      The container with which to resolve relative project names.
+     */
+    List<AbstractProject> getDependencyGraphProjectList(ItemGroup context) {
+        if (!ACL.SYSTEM2.equals(Jenkins.getAuthentication2())) {
+            return getProjectList(context, null);
+        }
+        long generation = ITEMS_GENERATION.get();
+        ResolvedProjects cached = resolvedProjects;
+        if (cached != null && cached.isValid(context, projects, generation)) {
+            return cached.projectList;
+        }
+        List<AbstractProject> projectList = Collections.unmodifiableList(getProjectList(context, null));
+        resolvedProjects = new ResolvedProjects(context, projects, generation, projectList);
+        return projectList;
+    }
+
     /**
      * Get list of all projects, including workflow job types
      * @param env Environment variables from which to expand project names; Might be {@code null}.
@@ -373,21 +489,55 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
             Collection<AbstractBuildParameters> configs, AbstractBuild<?, ?> build, TaskListener listener)
             throws IOException, InterruptedException, DontTriggerException {
         List<Action> actions = new ArrayList<>();
-        ParametersAction params = null;
+        ParametersAction first = null;
+        ParameterSetBuilder params = null;
         for (AbstractBuildParameters config : configs) {
             Action a = config.getAction(build, listener);
             if (a instanceof ParametersAction) {
-                params = params == null
-                        ? (ParametersAction) a
-                        : ParameterizedTriggerUtils.mergeParameters(params, (ParametersAction) a);
+                if (first == null) {
+                    first = (ParametersAction) a;
+                } else {
+                    if (params == null) {
+                        params = new ParameterSetBuilder().add(first);
+                    }
+                    params.add((ParametersAction) a);
+                }
             } else if (a != null) {
                 actions.add(a);
             }
         }
-        if (params != null) actions.add(params);
+        if (params != null) {
+            actions.add(params.build());
+        } else if (first != null) {
+            actions.add(first);
+        }
         return actions;
     }
 
+    /**
+     * Identifies a build request for {@link #isDeduplicate()}: the project, the parameter values whatever their
+     * order, and the other actions as far as their {@code equals} tells, which is identity for most of them.
+     */
+    static List<Object> getScheduleKey(Job<?, ?> project, List<Action> actions) {
+        List<Object> key = new ArrayList<>(actions.size() + 1);
+        key.add(project);
+        for (Action a : actions) {
+            if (a instanceof ParametersAction) {
+                List<ParameterValue> values = new ArrayList<>(((ParametersAction) a).getParameters());
+                values.sort(Comparator.comparing(ParameterValue::getName));
+                List<Object> canonical = new ArrayList<>(values.size());
+                for (ParameterValue v : values) {
+                    // ParameterValue.equals is not reliable across types, FileParameterValue compares locations
+                    canonical.add(Arrays.asList(v.getClass(), v.getName(), v.getValue()));
+                }
+                key.add(canonical);
+            } else {
+                key.add(a);
+            }
+        }
+        return key;
+    }
+
     List<Action> getBuildActions(List<Action> baseActions, Job<?, ?> project) {
         List<Action> actions = new ArrayList<>(baseActions);
 
@@ -411,6 +561,9 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
             if (condition.isMet(build.getResult())) {
                 QueueTaskFuture future = null;
                 List<QueueTaskFuture<AbstractBuild>> futures = new ArrayList<>();
+                Set<List<Object>> scheduled = new HashSet<>();
+                String inputs = avoidance != null ? avoidance.digestInputs(build, listener) : null;
+                ParameterValueInterner interner = new ParameterValueInterner();
 
                 for (List<AbstractBuildParameters> addConfigs : getDynamicBuildParameters(build, listener)) {
                     List<AbstractBuildParameters> buildParams = new ArrayList<>(configs);
@@ -418,10 +571,21 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
                     buildParams = Collections.unmodifiableList(buildParams);
                     List<Action> actions = getBaseActions(buildParams, build, listener);
                     for (Job project : getJobs(build.getRootBuild().getProject().getParent(), env)) {
-                        List<Action> list = getBuildActions(actions, project);
+                        List<Action> list = interner.intern(getBuildActions(actions, project));
+                        List<Object> key = deduplicate ? getScheduleKey(project, list) : null;
+                        if (key != null && scheduled.contains(key)) {
+                            // the build already triggered is waited for once
+                            continue;
+                        }
                         // Future can be null as schedule can return null
-                        future = schedule(build, project, list, listener);
+                        future = scheduleOrReuse(build, project, list, inputs, listener);
+                        if (future instanceof BuildAvoidance.ReusedBuild) {
+                            ((BuildAvoidance.ReusedBuild) future).record(build);
+                        }
                         if (future != null) {
+                            if (key != null) {
+                                scheduled.add(key);
+                            }
                             futures.add(future);
                         } else {
                             reportSchedulingError(build, project, listener);
@@ -487,21 +651,39 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
         try {
             if (getCondition().isMet(build.getResult())) {
                 ListMultimap<Job, QueueTaskFuture<AbstractBuild>> futures = ArrayListMultimap.create();
+                Set<List<Object>> distinct = new HashSet<>();
+                int duplicates = 0;
+                String inputs = avoidance != null ? avoidance.digestInputs(build, listener) : null;
+                ParameterValueInterner interner = new ParameterValueInterner();
 
                 for (List<AbstractBuildParameters> addConfigs : getDynamicBuildParameters(build, listener)) {
                     List<Action> actions =
                             getBaseActions(CollectionUtils.immutableList(configs, addConfigs), build, listener);
                     for (Job project : getJobs(build.getRootBuild().getProject().getParent(), env)) {
-                        List<Action> list = getBuildActions(actions, project);
+                        List<Action> list = interner.intern(getBuildActions(actions, project));
 
-                        final QueueTaskFuture scheduled = schedule(build, project, list, listener);
+                        List<Object> key = deduplicate ? getScheduleKey(project, list) : null;
+                        if (key != null && distinct.contains(key)) {
+                            // the build already triggered is waited for once
+                            duplicates++;
+                            continue;
+                        }
+                        final QueueTaskFuture scheduled = scheduleOrReuse(build, project, list, inputs, listener);
                         if (scheduled != null) {
                             futures.put(project, scheduled);
+                            if (key != null) {
+                                distinct.add(key);
+                            }
                         } else {
                             reportSchedulingError(build, project, listener);
                         }
                     }
                 }
+                if (duplicates > 0) {
+                    listener.getLogger()
+                            .println(Plugin.LOG_TAG + " " + duplicates
+                                    + " identical parameter sets were mapped onto builds already triggered");
+                }
                 return futures;
             }
         } catch (DontTriggerException e) {
@@ -510,6 +692,45 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
         return ArrayListMultimap.create();
     }
 
+    /**
+     * Triggers {@code project} for the dependency graph, unless {@link #getAvoidance()} finds a recent identical
+     * run to reuse.
+     *
+     * @return false if the project could not be scheduled.
+     */
+    boolean scheduleOrReuse(AbstractBuild<?, ?> build, Job project, List<Action> list, TaskListener listener)
+            throws InterruptedException, IOException {
+        String inputs = avoidance != null ? avoidance.digestInputs(build, listener) : null;
+        QueueTaskFuture future = scheduleOrReuse(build, project, list, inputs, listener);
+        if (future instanceof BuildAvoidance.ReusedBuild) {
+            ((BuildAvoidance.ReusedBuild) future).record(build);
+        }
+        return future != null;
+    }
+
+    /**
+     * Schedules {@code project}, unless {@link #getAvoidance()} finds a recent identical run to reuse.
+     *
+     * @param inputs digest of the input files, see {@link BuildAvoidance#digestInputs(AbstractBuild, TaskListener)}
+     */
+    @CheckForNull
+    private QueueTaskFuture scheduleOrReuse(
+            AbstractBuild<?, ?> build, Job project, List<Action> list, String inputs, TaskListener listener)
+            throws InterruptedException, IOException {
+        String key = avoidance != null ? BuildAvoidance.getKey(project, list, inputs) : null;
+        if (key == null) {
+            return schedule(build, project, list, listener);
+        }
+        if (canTriggerProject(build, project, listener)) {
+            QueueTaskFuture reused = avoidance.reuse(key, project, listener);
+            if (reused != null) {
+                return reused;
+            }
+        }
+        List<Action> actions = CollectionUtils.immutableList(list, new BuildAvoidance.KeyAction(key));
+        return schedule(build, project, actions, listener);
+    }
+
     /**
      * @return
      *      Inner list represents a set of build parameters used together for one invocation of a project,
@@ -521,24 +742,15 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
         if (configFactories == null || configFactories.isEmpty()) {
             return Collections.singletonList(Collections.emptyList());
         } else {
-            // this code is building the combinations of all AbstractBuildParameters reported from all factories
-            List<List<AbstractBuildParameters>> dynamicBuildParameters = new ArrayList();
-            dynamicBuildParameters.add(Collections.emptyList());
+            List<List<AbstractBuildParameters>> factoryParameters = new ArrayList<>();
             for (AbstractBuildParameterFactory configFactory : configFactories) {
-                List<List<AbstractBuildParameters>> newDynParameters = new ArrayList();
-                List<AbstractBuildParameters> factoryParameters = configFactory.getParameters(build, listener);
-                // if factory returns 0 parameters we need to skip assigning newDynParameters to dynamicBuildParameters
-                // as we would add invalid list
-                if (factoryParameters.size() > 0) {
-                    for (AbstractBuildParameters config : factoryParameters) {
-                        for (List<AbstractBuildParameters> dynamicBuildParameter : dynamicBuildParameters) {
-                            newDynParameters.add(CollectionUtils.immutableList(dynamicBuildParameter, config));
-                        }
-                    }
-                    dynamicBuildParameters = newDynParameters;
+                List<AbstractBuildParameters> parameters = configFactory.getParameters(build, listener);
+                // a factory returning 0 parameters is left out, combining it would give no combination at all
+                if (parameters.size() > 0) {
+                    factoryParameters.add(parameters);
                 }
             }
-            return dynamicBuildParameters;
+            return getCombinationStrategy().combine(factoryParameters, listener);
         }
     }
 
@@ -607,7 +819,11 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
                 return null;
             }
 
-            return parameterizedJobMixIn.scheduleBuild2(quietPeriod, queueActions.toArray(new Action[0]));
+            QueueTaskFuture held = PreQueueGate.open(build, project, this, queueActions);
+            if (held != null) {
+                return held;
+            }
+            return AdmissionControl.get().schedule(project, parameterizedJobMixIn, quietPeriod, queueActions, listener);
         }
 
         // Trigger is not compatible with un-parameterized jobs
@@ -772,6 +988,56 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
                 + "]";
     }
 
+    private static final class ResolvedProjects {
+        private final ItemGroup context;
+        private final String projects;
+        private final long generation;
+        private final List<AbstractProject> projectList;
+
+        ResolvedProjects(ItemGroup context, String projects, long generation, List<AbstractProject> projectList) {
+            this.context = context;
+            this.projects = projects;
+            this.generation = generation;
+            this.projectList = projectList;
+        }
+
+        boolean isValid(ItemGroup context, String projects, long generation) {
+            return this.context == context && this.projects.equals(projects) && this.generation == generation;
+        }
+    }
+
+    /**
+     * Invalidates the memoized project lists used by the dependency graph
+     * when the set of resolvable items changes.
+     */
+    @Extension
+    public static final class ResolvedProjectsInvalidator extends ItemListener {
+        @Override
+        public void onCreated(Item item) {
+            ITEMS_GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            ITEMS_GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            ITEMS_GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            ITEMS_GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void onLoaded() {
+            ITEMS_GENERATION.incrementAndGet();
+        }
+    }
+
     @Extension
     public static class DescriptorImpl extends Descriptor<BuildTriggerConfig> {
         @Override
@@ -787,6 +1053,10 @@ public class BuildTriggerConfig implements Describable<BuildTriggerConfig> {
             return Jenkins.getInstance().getDescriptorList(AbstractBuildParameterFactory.class);
         }
 
+        public List<Descriptor<CombinationStrategy>> getCombinationStrategyDescriptors() {
+            return Jenkins.getInstance().getDescriptorList(CombinationStrategy.class);
+        }
+
         @Restricted(DoNotUse.class)
         public boolean isItemGroup(AbstractProject project) {
             return project instanceof ItemGroup;
@@ -0,0 +1,422 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.ExtensionPoint;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Decides which combinations of the values returned by the {@link AbstractBuildParameterFactory}s
+ * of a {@link BuildTriggerConfig} are triggered.
+ */
+public abstract class CombinationStrategy extends AbstractDescribableImpl<CombinationStrategy>
+        implements ExtensionPoint {
+
+    /**
+     * @param factoryParameters
+     *      Values of each factory, in the order the factories are configured. None of the lists is empty.
+     * @param listener
+     *      Connected to the build output.
+     * @return
+     *      Inner list represents a set of build parameters used together for one invocation of a project,
+     *      holding one value of each factory in factory order, and outer list represents multiple invocations.
+     */
+    public abstract List<List<AbstractBuildParameters>> combine(
+            List<List<AbstractBuildParameters>> factoryParameters, TaskListener listener) throws AbortException;
+
+    private static List<AbstractBuildParameters> row(List<List<AbstractBuildParameters>> factoryParameters, int[] row) {
+        AbstractBuildParameters[] params = new AbstractBuildParameters[row.length];
+        for (int f = 0; f < row.length; f++) {
+            params[f] = factoryParameters.get(f).get(row[f]);
+        }
+        return Collections.unmodifiableList(Arrays.asList(params));
+    }
+
+    /**
+     * Combinations numbered from 0, each created when it is read.
+     */
+    private abstract static class Rows extends AbstractList<List<AbstractBuildParameters>> implements RandomAccess {
+        private final List<List<AbstractBuildParameters>> factoryParameters;
+        private final int size;
+
+        Rows(List<List<AbstractBuildParameters>> factoryParameters, int size) {
+            this.factoryParameters = factoryParameters;
+            this.size = size;
+        }
+
+        /**
+         * Sets the index of the value of each factory in combination {@code index}.
+         */
+        abstract void fill(int index, int[] row);
+
+        @Override
+        public List<AbstractBuildParameters> get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            int[] row = new int[factoryParameters.size()];
+            fill(index, row);
+            return row(factoryParameters, row);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * All the possible combinations, M×N builds for factories returning M and N values.
+     *
+     * <p>
+     * Combinations are created as they are read, and read the values of the factories as they go, so that lazy
+     * factories such as {@link CounterBuildParameterFactory} are not copied.
+     */
+    public static class Cartesian extends CombinationStrategy {
+        @DataBoundConstructor
+        public Cartesian() {}
+
+        @Override
+        public List<List<AbstractBuildParameters>> combine(
+                List<List<AbstractBuildParameters>> factoryParameters, TaskListener listener) throws AbortException {
+            long total = 1;
+            for (List<AbstractBuildParameters> values : factoryParameters) {
+                try {
+                    total = Math.multiplyExact(total, values.size());
+                } catch (ArithmeticException e) {
+                    total = Long.MAX_VALUE;
+                    break;
+                }
+            }
+            if (total > Integer.MAX_VALUE) {
+                throw new AbortException(Messages.CombinationStrategy_TooManyCombinations(Integer.MAX_VALUE));
+            }
+            final int size = (int) total;
+            return new Rows(factoryParameters, size) {
+                @Override
+                void fill(int index, int[] row) {
+                    // the first factory varies fastest
+                    for (int f = 0; f < row.length; f++) {
+                        int values = factoryParameters.get(f).size();
+                        row[f] = index % values;
+                        index /= values;
+                    }
+                }
+            };
+        }
+
+        @Extension(ordinal = 100)
+        public static class DescriptorImpl extends Descriptor<CombinationStrategy> {
+            @Override
+            public String getDisplayName() {
+                return Messages.CombinationStrategy_Cartesian_DisplayName();
+            }
+        }
+    }
+
+    /**
+     * The i-th value of every factory together, as many builds as the shortest factory has values.
+     */
+    public static class Zip extends CombinationStrategy {
+        @DataBoundConstructor
+        public Zip() {}
+
+        @Override
+        public List<List<AbstractBuildParameters>> combine(
+                List<List<AbstractBuildParameters>> factoryParameters, TaskListener listener) {
+            int size = Integer.MAX_VALUE;
+            int maxSize = 0;
+            for (List<AbstractBuildParameters> values : factoryParameters) {
+                size = Math.min(size, values.size());
+                maxSize = Math.max(maxSize, values.size());
+            }
+            if (factoryParameters.isEmpty()) {
+                return Collections.singletonList(Collections.emptyList());
+            }
+            if (size != maxSize) {
+                listener.getLogger()
+                        .println(Plugin.LOG_TAG + " Parameter factories returned between " + size + " and " + maxSize
+                                + " values, only the first " + size + " of each are used");
+            }
+            return new Rows(factoryParameters, size) {
+                @Override
+                void fill(int index, int[] row) {
+                    Arrays.fill(row, index);
+                }
+            };
+        }
+
+        @Extension
+        public static class DescriptorImpl extends Descriptor<CombinationStrategy> {
+            @Override
+            public String getDisplayName() {
+                return Messages.CombinationStrategy_Zip_DisplayName();
+            }
+        }
+    }
+
+    /**
+     * Enough combinations for every pair of values of any two factories to be triggered together at least once.
+     *
+     * <p>
+     * Combinations are built greedily: each one starts from a pair not covered yet, and every other factory
+     * takes the value covering the most uncovered pairs with the values chosen so far. This is not minimal,
+     * but stays within a small factor of it, e.g. 138 builds for 5 factories of 10 values rather than 100000.
+     */
+    public static class AllPairs extends CombinationStrategy {
+        /**
+         * Pairs of values to cover beyond which the build step fails before any build is triggered, 0 for no limit.
+         */
+        private static final long MAX_PAIRS = Long.getLong(CombinationStrategy.class.getName() + ".maxPairs", 1000000);
+
+        @DataBoundConstructor
+        public AllPairs() {}
+
+        @Override
+        public List<List<AbstractBuildParameters>> combine(
+                List<List<AbstractBuildParameters>> factoryParameters, TaskListener listener) throws AbortException {
+            int k = factoryParameters.size();
+            if (k < 2) {
+                return new Cartesian().combine(factoryParameters, listener);
+            }
+            int[] sizes = new int[k];
+            for (int f = 0; f < k; f++) {
+                sizes[f] = factoryParameters.get(f).size();
+            }
+            long pairs = 0;
+            for (int a = 0; a < k; a++) {
+                for (int b = a + 1; b < k; b++) {
+                    pairs += (long) sizes[a] * sizes[b];
+                }
+            }
+            long maxPairs = MAX_PAIRS > 0 ? Math.min(MAX_PAIRS, Integer.MAX_VALUE) : Integer.MAX_VALUE;
+            if (pairs > maxPairs) {
+                throw new AbortException(Messages.CombinationStrategy_AllPairs_TooManyPairs(pairs, maxPairs));
+            }
+
+            // uncovered[a][b][i * sizes[b] + j] for factors a < b
+            boolean[][][] uncovered = new boolean[k][k][];
+            for (int a = 0; a < k; a++) {
+                for (int b = a + 1; b < k; b++) {
+                    uncovered[a][b] = new boolean[sizes[a] * sizes[b]];
+                    Arrays.fill(uncovered[a][b], true);
+                }
+            }
+
+            List<List<AbstractBuildParameters>> combinations = new ArrayList<>();
+            long remaining = pairs;
+            int[] row = new int[k];
+            int[] cursor = {0, 1, 0};
+            while (remaining > 0) {
+                Arrays.fill(row, -1);
+                seed(uncovered, sizes, row, cursor);
+                for (int f = 0; f < k; f++) {
+                    if (row[f] < 0) {
+                        row[f] = bestValue(uncovered, sizes, row, f);
+                    }
+                }
+                for (int a = 0; a < k; a++) {
+                    for (int b = a + 1; b < k; b++) {
+                        int pair = row[a] * sizes[b] + row[b];
+                        if (uncovered[a][b][pair]) {
+                            uncovered[a][b][pair] = false;
+                            remaining--;
+                        }
+                    }
+                }
+                combinations.add(row(factoryParameters, row));
+            }
+            listener.getLogger()
+                    .println(Plugin.LOG_TAG + " Covering all pairs of parameter factory values with "
+                            + combinations.size() + " builds");
+            return combinations;
+        }
+
+        /**
+         * Fixes the first uncovered pair in {@code row}.
+         *
+         * @param cursor
+         *      Factors and pair the previous search stopped at. Pairs are never uncovered again, so each search
+         *      resumes there and all of them together scan the pairs once.
+         */
+        private static void seed(boolean[][][] uncovered, int[] sizes, int[] row, int[] cursor) {
+            int a = cursor[0];
+            int b = cursor[1];
+            int pair = cursor[2];
+            while (a < sizes.length) {
+                if (b >= sizes.length) {
+                    a++;
+                    b = a + 1;
+                    pair = 0;
+                } else if (pair >= uncovered[a][b].length) {
+                    b++;
+                    pair = 0;
+                } else if (uncovered[a][b][pair]) {
+                    row[a] = pair / sizes[b];
+                    row[b] = pair % sizes[b];
+                    cursor[0] = a;
+                    cursor[1] = b;
+                    cursor[2] = pair;
+                    return;
+                } else {
+                    pair++;
+                }
+            }
+        }
+
+        private static int bestValue(boolean[][][] uncovered, int[] sizes, int[] row, int f) {
+            int best = 0;
+            int bestCount = -1;
+            for (int v = 0; v < sizes[f]; v++) {
+                int count = 0;
+                for (int g = 0; g < sizes.length; g++) {
+                    if (g == f || row[g] < 0) {
+                        continue;
+                    }
+                    boolean u = g < f
+                            ? uncovered[g][f][row[g] * sizes[f] + v]
+                            : uncovered[f][g][v * sizes[g] + row[g]];
+                    if (u) {
+                        count++;
+                    }
+                }
+                if (count > bestCount) {
+                    best = v;
+                    bestCount = count;
+                }
+            }
+            return best;
+        }
+
+        @Extension
+        public static class DescriptorImpl extends Descriptor<CombinationStrategy> {
+            @Override
+            public String getDisplayName() {
+                return Messages.CombinationStrategy_AllPairs_DisplayName();
+            }
+        }
+    }
+
+    /**
+     * Up to {@link #getBudget()} distinct combinations drawn at random, the same ones for the same seed.
+     *
+     * <p>
+     * Only the indices of the combinations are drawn up front, each combination is created when it is read.
+     */
+    public static class RandomSample extends CombinationStrategy {
+        /**
+         * Combinations to sample beyond which the build step fails before any build is triggered, 0 for no limit.
+         */
+        private static final long MAX_SAMPLE =
+                Long.getLong(CombinationStrategy.class.getName() + ".maxSample", 100000);
+
+        private final long seed;
+        private final int budget;
+
+        @DataBoundConstructor
+        public RandomSample(long seed, int budget) {
+            this.seed = seed;
+            this.budget = budget;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        private static long getMaxSample() {
+            return MAX_SAMPLE > 0 ? Math.min(MAX_SAMPLE, Integer.MAX_VALUE) : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<List<AbstractBuildParameters>> combine(
+                List<List<AbstractBuildParameters>> factoryParameters, TaskListener listener) throws AbortException {
+            if (budget <= 0) {
+                throw new AbortException(Messages.CombinationStrategy_RandomSample_InvalidBudget(budget));
+            }
+            long maxSample = getMaxSample();
+            if (budget > maxSample) {
+                throw new AbortException(Messages.CombinationStrategy_RandomSample_TooLargeBudget(budget, maxSample));
+            }
+            long total = 1;
+            for (List<AbstractBuildParameters> values : factoryParameters) {
+                try {
+                    total = Math.multiplyExact(total, values.size());
+                } catch (ArithmeticException e) {
+                    total = Long.MAX_VALUE;
+                    break;
+                }
+            }
+            if (total <= budget) {
+                return new Cartesian().combine(factoryParameters, listener);
+            }
+
+            Random random = new Random(seed);
+            long[] indices = new long[budget];
+            int distinct = 0;
+            while (distinct < budget) {
+                // draws as many as are missing, so that the sample only depends on the seed
+                for (int i = distinct; i < budget; i++) {
+                    indices[i] = Math.floorMod(random.nextLong(), total);
+                }
+                Arrays.sort(indices);
+                distinct = 1;
+                for (int i = 1; i < budget; i++) {
+                    if (indices[i] != indices[distinct - 1]) {
+                        indices[distinct++] = indices[i];
+                    }
+                }
+            }
+            listener.getLogger()
+                    .println(Plugin.LOG_TAG + " Sampled " + budget + " of " + total
+                            + " combinations of parameter factory values");
+            return new Rows(factoryParameters, budget) {
+                @Override
+                void fill(int index, int[] row) {
+                    long combination = indices[index];
+                    // same numbering as Cartesian, where the first factory varies fastest
+                    for (int f = 0; f < row.length; f++) {
+                        int size = factoryParameters.get(f).size();
+                        row[f] = (int) (combination % size);
+                        combination /= size;
+                    }
+                }
+            };
+        }
+
+        @Extension
+        public static class DescriptorImpl extends Descriptor<CombinationStrategy> {
+            @Override
+            public String getDisplayName() {
+                return Messages.CombinationStrategy_RandomSample_DisplayName();
+            }
+
+            public FormValidation doCheckBudget(@QueryParameter int value) {
+                if (value <= 0) {
+                    return FormValidation.error(Messages.CombinationStrategy_RandomSample_InvalidBudget(value));
+                }
+                long maxSample = getMaxSample();
+                if (value > maxSample) {
+                    return FormValidation.error(
+                            Messages.CombinationStrategy_RandomSample_TooLargeBudget(value, maxSample));
+                }
+                return FormValidation.ok();
+            }
+        }
+    }
+}
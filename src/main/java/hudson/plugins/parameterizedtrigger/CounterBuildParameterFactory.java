@@ -1,5 +1,6 @@
 package hudson.plugins.parameterizedtrigger;
 
+import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.Util;
@@ -8,9 +9,15 @@ import hudson.model.TaskListener;
 import hudson.util.FormValidation;
 import hudson.util.VariableResolver;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
@@ -22,12 +29,44 @@ import org.kohsuke.stapler.QueryParameter;
  */
 public class CounterBuildParameterFactory extends AbstractBuildParameterFactory {
 
+    /**
+     * Ranges with more values than this fail the build step before any parameter is created, 0 for no limit.
+     */
+    private static final long MAX_COUNT =
+            Long.getLong(CounterBuildParameterFactory.class.getName() + ".maxCount", 100000);
+
     private final String from;
     private final String to;
     private final String step;
     private final String paramExpr;
     private final SteppingValidationEnum validationFail;
 
+    /**
+     * Number of shards to split the range into, blank to trigger one build per value.
+     */
+    private final String shardCount;
+
+    /**
+     * Number of values per shard, used when {@link #shardCount} is blank.
+     */
+    private final String shardSize;
+
+    /**
+     * {@link #paramExpr} parsed on first use, with slots for the counter and shard values.
+     */
+    private transient volatile PropertiesTemplate template;
+
+    private static final Set<String> COUNT_SLOTS = Collections.singleton("COUNT");
+
+    /**
+     * Shard values set as parameters of each shard, ahead of {@link #paramExpr}.
+     */
+    private static final List<String> SHARD_PARAMETERS =
+            Arrays.asList("SHARD_FROM", "SHARD_TO", "SHARD_INDEX", "SHARD_COUNT");
+
+    private static final Set<String> SHARD_SLOTS =
+            new HashSet<>(Arrays.asList("COUNT", "SHARD_FROM", "SHARD_TO", "SHARD_INDEX", "SHARD_COUNT"));
+
     public enum SteppingValidationEnum {
         FAIL("Fail the build step"), // previous behaviour (default)
         SKIP("Don't trigger these projects") {
@@ -73,47 +112,193 @@ public class CounterBuildParameterFactory extends AbstractBuildParameterFactory
         this(from, to, step, paramExpr, SteppingValidationEnum.FAIL);
     }
 
-    @DataBoundConstructor
     public CounterBuildParameterFactory(
             String from, String to, String step, String paramExpr, SteppingValidationEnum validationFail) {
+        this(from, to, step, paramExpr, validationFail, null, null);
+    }
+
+    @DataBoundConstructor
+    public CounterBuildParameterFactory(
+            String from,
+            String to,
+            String step,
+            String paramExpr,
+            SteppingValidationEnum validationFail,
+            String shardCount,
+            String shardSize) {
         this.from = from;
         this.to = to;
         this.step = step;
         this.paramExpr = paramExpr;
         this.validationFail = validationFail;
+        this.shardCount = Util.fixEmptyAndTrim(shardCount);
+        this.shardSize = Util.fixEmptyAndTrim(shardSize);
     }
 
     @Override
     public List<AbstractBuildParameters> getParameters(AbstractBuild<?, ?> build, TaskListener listener)
             throws IOException, InterruptedException, AbstractBuildParameters.DontTriggerException {
         EnvVars envVars = build.getEnvironment(listener);
+        PropertiesTemplate template = getTemplate();
 
         long fromNum = Long.parseLong(envVars.expand(from));
         long toNum = Long.parseLong(envVars.expand(to));
         long stepNum = Long.parseLong(envVars.expand(step));
 
-        List<AbstractBuildParameters> params = new ArrayList();
-        int upDown = Long.signum(toNum - fromNum);
+        int upDown = Long.compare(toNum, fromNum);
 
         if (upDown == 0) {
-            params.add(getParameterForCount(fromNum));
+            if (isSharded()) {
+                return Collections.singletonList(getParameterForShard(template, fromNum, fromNum, 0, 1));
+            }
+            return Collections.singletonList(getParameterForCount(template, fromNum));
         } else {
             if (stepNum == 0) {
                 validationFail.failCheck(listener);
             } else if (upDown * stepNum < 0) {
                 validationFail.failCheck(listener);
             } else {
-                for (long i = fromNum; upDown * i <= upDown * toNum; i += stepNum) {
-                    params.add(getParameterForCount(i));
+                long count;
+                try {
+                    count = Math.addExact(Math.subtractExact(toNum, fromNum) / stepNum, 1);
+                } catch (ArithmeticException e) {
+                    count = Long.MAX_VALUE;
+                }
+                if (isSharded()) {
+                    return getShards(template, envVars, fromNum, toNum, stepNum, count);
                 }
+                long maxCount = MAX_COUNT > 0 ? Math.min(MAX_COUNT, Integer.MAX_VALUE) : Integer.MAX_VALUE;
+                if (count > maxCount) {
+                    throw new AbortException(
+                            Messages.CounterBuildParameterFactory_TooManyCounts(fromNum, toNum, stepNum, maxCount));
+                }
+                return new Counts(template, fromNum, stepNum, (int) count);
             }
         }
-        return params;
+        return Collections.emptyList();
     }
 
-    private PredefinedBuildParameters getParameterForCount(Long i) {
-        String stringWithCount = Util.replaceMacro(paramExpr, Collections.singletonMap("COUNT", i.toString()));
-        return new PredefinedBuildParameters(stringWithCount);
+    public boolean isSharded() {
+        return shardCount != null || shardSize != null;
+    }
+
+    private List<AbstractBuildParameters> getShards(
+            PropertiesTemplate template, EnvVars envVars, long fromNum, long toNum, long stepNum, long count)
+            throws AbortException {
+        if (count == Long.MAX_VALUE) {
+            throw new AbortException(
+                    Messages.CounterBuildParameterFactory_TooManyCounts(fromNum, toNum, stepNum, Long.MAX_VALUE - 1));
+        }
+        long shards;
+        if (shardCount != null) {
+            shards = Long.parseLong(envVars.expand(shardCount));
+        } else {
+            long size = Long.parseLong(envVars.expand(shardSize));
+            shards = size > 0 ? (count - 1) / size + 1 : size;
+        }
+        if (shards <= 0) {
+            throw new AbortException(Messages.CounterBuildParameterFactory_InvalidShards(shardCount, shardSize));
+        }
+        shards = Math.min(shards, count);
+        long maxCount = MAX_COUNT > 0 ? Math.min(MAX_COUNT, Integer.MAX_VALUE) : Integer.MAX_VALUE;
+        if (shards > maxCount) {
+            throw new AbortException(Messages.CounterBuildParameterFactory_TooManyShards(shards, maxCount));
+        }
+        return new Shards(template, fromNum, stepNum, count, (int) shards);
+    }
+
+    private PropertiesTemplate getTemplate() throws IOException {
+        PropertiesTemplate t = template;
+        if (t == null) {
+            // later lines win, so that paramExpr can still override the shard parameters
+            t = template = isSharded()
+                    ? PropertiesTemplate.parse(paramExpr, SHARD_SLOTS, SHARD_PARAMETERS)
+                    : PropertiesTemplate.parse(paramExpr, COUNT_SLOTS, Collections.emptyList());
+        }
+        return t;
+    }
+
+    private PredefinedBuildParameters getParameterForShard(
+            PropertiesTemplate template, long shardFrom, long shardTo, int index, int count) {
+        Map<String, String> slots = new HashMap<>();
+        slots.put("COUNT", Long.toString(shardFrom));
+        slots.put("SHARD_FROM", Long.toString(shardFrom));
+        slots.put("SHARD_TO", Long.toString(shardTo));
+        slots.put("SHARD_INDEX", Integer.toString(index));
+        slots.put("SHARD_COUNT", Integer.toString(count));
+        return new PredefinedBuildParameters(template, slots);
+    }
+
+    private PredefinedBuildParameters getParameterForCount(PropertiesTemplate template, Long i) {
+        return new PredefinedBuildParameters(template, Collections.singletonMap("COUNT", i.toString()));
+    }
+
+    /**
+     * Counter values created on demand, so that memory does not grow with the range.
+     */
+    private final class Counts extends AbstractList<AbstractBuildParameters> implements RandomAccess {
+        private final PropertiesTemplate template;
+        private final long from;
+        private final long step;
+        private final int size;
+
+        Counts(PropertiesTemplate template, long from, long step, int size) {
+            this.template = template;
+            this.from = from;
+            this.step = step;
+            this.size = size;
+        }
+
+        @Override
+        public AbstractBuildParameters get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return getParameterForCount(template, from + index * step);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Contiguous runs of counter values, the first {@code values % size} shards taking one extra value.
+     */
+    private final class Shards extends AbstractList<AbstractBuildParameters> implements RandomAccess {
+        private final PropertiesTemplate template;
+        private final long from;
+        private final long step;
+        private final long values;
+        private final int size;
+
+        Shards(PropertiesTemplate template, long from, long step, long values, int size) {
+            this.template = template;
+            this.from = from;
+            this.step = step;
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public AbstractBuildParameters get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            long first = start(index);
+            long last = start(index + 1) - 1;
+            return getParameterForShard(template, from + first * step, from + last * step, index, size);
+        }
+
+        private long start(int index) {
+            return index * (values / size) + Math.min(index, values % size);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
     }
 
     @Extension
@@ -135,6 +320,14 @@ public class CounterBuildParameterFactory extends AbstractBuildParameterFactory
             return validateNumberField(value);
         }
 
+        public FormValidation doCheckShardCount(@QueryParameter String value) {
+            return StringUtils.isBlank(value) ? FormValidation.ok() : validateNumberField(value);
+        }
+
+        public FormValidation doCheckShardSize(@QueryParameter String value) {
+            return StringUtils.isBlank(value) ? FormValidation.ok() : validateNumberField(value);
+        }
+
         private FormValidation validateNumberField(String value) {
             // The field can contain Parameters - eliminate them first. The remaining String should
             // be empty or a number.
@@ -176,6 +369,14 @@ public class CounterBuildParameterFactory extends AbstractBuildParameterFactory
         return validationFail;
     }
 
+    public String getShardCount() {
+        return shardCount;
+    }
+
+    public String getShardSize() {
+        return shardSize;
+    }
+
     private static final VariableResolver<String> EMPTY_STRING_VARIABLE_RESOLVER = new VariableResolver<String>() {
 
         @Override
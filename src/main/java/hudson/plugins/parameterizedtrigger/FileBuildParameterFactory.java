@@ -4,21 +4,37 @@
  */
 package hudson.plugins.parameterizedtrigger;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Util;
 import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.StringParameterValue;
 import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
 import hudson.util.FormValidation;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jenkins.MasterToSlaveFileCallable;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
@@ -109,26 +125,91 @@ public class FileBuildParameterFactory extends AbstractBuildParameterFactory {
 
         List<AbstractBuildParameters> result = new ArrayList();
 
+        String pattern = env.expand(getFilePattern());
         try {
             FilePath workspace = getWorkspace(build);
-            FilePath[] files = workspace.list(env.expand(getFilePattern()));
-            if (files.length == 0) {
+            // files are decoded on the agent, so pin the controller default when no encoding is set
+            String charset = encoding != null ? encoding : Charset.defaultCharset().name();
+            ParsedPropertiesCache cache = ParsedPropertiesCache.get();
+            String reader = build.getProject().getFullName() + '\n' + pattern;
+            WorkspaceGlob.Listing listing = workspace.act(new WorkspaceGlob.ListFiles(
+                    pattern, cache.getKnownDigests(reader, charset), MAX_CHUNK_BYTES));
+            listener.getLogger()
+                    .println(Plugin.LOG_TAG + " Found " + listing.paths.size() + " files matching " + pattern + " in "
+                            + listing.scanMillis + " ms");
+            if (listing.paths.isEmpty()) {
                 noFilesFoundAction.failCheck(listener);
             } else {
-                for (FilePath f : files) {
-                    String parametersStr = ParameterizedTriggerUtils.readFileToString(f, getEncoding());
+                List<Map<String, String>> properties = parse(workspace, listing, charset);
+                cache.setSeenDigests(reader, listing.digests);
+                for (int i = 0; i < properties.size(); i++) {
+                    String path = listing.paths.get(i);
                     Logger.getLogger(FileBuildParameterFactory.class.getName())
-                            .log(Level.INFO, null, "Triggering build with " + f.getName());
-                    result.add(new PredefinedBuildParameters(parametersStr));
+                            .log(Level.INFO, null, "Triggering build with " + path.substring(path.lastIndexOf('/') + 1));
+                    result.add(new ParsedFileParameters(properties.get(i)));
                 }
             }
         } catch (IOException ex) {
-            Logger.getLogger(FileBuildParameterFactory.class.getName()).log(Level.SEVERE, null, ex);
+            // such as a file larger than the limit of FileBuildParameters, none of the files is used then
+            Logger.getLogger(FileBuildParameterFactory.class.getName()).log(Level.FINE, null, ex);
+            listener.error(Messages.FileBuildParameterFactory_CannotReadFiles(pattern, ex.getMessage()));
+            noFilesFoundAction.failCheck(listener);
+            return Collections.emptyList();
         }
 
         return result;
     }
 
+    /**
+     * Parses the listed files, taking those whose content was parsed before from {@link ParsedPropertiesCache}, and
+     * reading those whose content did not come with the listing.
+     */
+    private List<Map<String, String>> parse(FilePath workspace, WorkspaceGlob.Listing listing, String charset)
+            throws IOException, InterruptedException {
+        ParsedPropertiesCache cache = ParsedPropertiesCache.get();
+
+        List<Map<String, String>> properties = new ArrayList<>(listing.paths.size());
+        List<Integer> missingIndices = new ArrayList<>();
+        List<String> missingPaths = new ArrayList<>();
+        int reused = 0;
+        for (int i = 0; i < listing.paths.size(); i++) {
+            String path = listing.paths.get(i);
+            Map<String, String> p = cache.lookup(listing.digests.get(i), charset);
+            byte[] content = listing.getContent(i);
+            if (p != null) {
+                reused++;
+            } else if (content != null) {
+                Properties parsed = ParameterizedTriggerUtils.loadProperties(
+                        new ByteArrayInputStream(content),
+                        Charset.forName(charset),
+                        FileBuildParameters.MAX_FILE_SIZE,
+                        path);
+                p = cache.put(listing.digests.get(i), charset, ParameterizedTriggerUtils.toMap(parsed));
+            } else {
+                missingIndices.add(i);
+                missingPaths.add(path);
+            }
+            properties.add(p);
+        }
+
+        int done = 0;
+        while (done < missingPaths.size()) {
+            ParsedFiles parsed = workspace.act(new ParseFiles(
+                    missingPaths.subList(done, missingPaths.size()),
+                    charset,
+                    MAX_CHUNK_BYTES,
+                    FileBuildParameters.MAX_FILE_SIZE));
+            for (int i = 0; i < parsed.properties.size(); i++) {
+                Map<String, String> p = cache.put(parsed.digests.get(i), charset, parsed.properties.get(i));
+                properties.set(missingIndices.get(done + i), p);
+            }
+            done += parsed.properties.size();
+        }
+        Logger.getLogger(FileBuildParameterFactory.class.getName())
+                .fine("Reused the parsed properties of " + reused + " of " + listing.paths.size() + " files");
+        return properties;
+    }
+
     private FilePath getWorkspace(AbstractBuild build) {
         FilePath workspace = build.getWorkspace();
         if (workspace == null) {
@@ -137,6 +218,89 @@ public class FileBuildParameterFactory extends AbstractBuildParameterFactory {
         return workspace;
     }
 
+    /**
+     * Upper bound of file content read into a single agent response.
+     * Matching files beyond it are parsed by follow-up calls.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tunable from the script console")
+    public static long MAX_CHUNK_BYTES =
+            Long.getLong(FileBuildParameterFactory.class.getName() + ".maxChunkBytes", 4L * 1024 * 1024);
+
+    /**
+     * Reads and parses files on the agent, as many as fit in a response,
+     * so that a build creating thousands of files costs a handful of round trips rather than one per file.
+     */
+    private static final class ParseFiles extends MasterToSlaveFileCallable<ParsedFiles> {
+        private static final long serialVersionUID = 1L;
+
+        private final ArrayList<String> paths;
+        private final String charset;
+        private final long maxChunkBytes;
+        private final long maxFileSize;
+
+        ParseFiles(List<String> paths, String charset, long maxChunkBytes, long maxFileSize) {
+            this.paths = new ArrayList<>(paths);
+            this.charset = charset;
+            this.maxChunkBytes = maxChunkBytes;
+            this.maxFileSize = maxFileSize;
+        }
+
+        @Override
+        public ParsedFiles invoke(File dir, VirtualChannel channel) throws IOException {
+            ParsedFiles parsed = new ParsedFiles();
+            Charset cs = Charset.forName(charset);
+            long bytes = 0;
+            for (String path : paths) {
+                if (bytes >= maxChunkBytes && !parsed.properties.isEmpty()) {
+                    break;
+                }
+                byte[] content;
+                // same limit as FileBuildParameters, the whole file is held in memory
+                try (InputStream in = Files.newInputStream(new File(dir, path).toPath())) {
+                    content = ParameterizedTriggerUtils.readFully(in, maxFileSize, path);
+                }
+                bytes += content.length;
+
+                Properties p = ParameterizedTriggerUtils.loadProperties(new String(content, cs));
+                parsed.properties.add(ParameterizedTriggerUtils.toMap(p));
+                // digest of what was actually parsed, the file may have changed since it was listed
+                parsed.digests.add(ParameterizedTriggerUtils.sha256(content));
+            }
+            return parsed;
+        }
+    }
+
+    private static final class ParsedFiles implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** Properties of a prefix of the requested paths, the rest is left for a follow-up call. */
+        private final List<LinkedHashMap<String, String>> properties = new ArrayList<>();
+
+        private final List<String> digests = new ArrayList<>();
+    }
+
+    /**
+     * Same as {@link PredefinedBuildParameters} for properties already parsed on the agent.
+     */
+    private static final class ParsedFileParameters extends AbstractBuildParameters {
+        private final Map<String, String> properties;
+
+        ParsedFileParameters(Map<String, String> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Action getAction(AbstractBuild<?, ?> build, TaskListener listener)
+                throws IOException, InterruptedException {
+            EnvVars env = getEnvironment(build, listener);
+            List<ParameterValue> values = new ArrayList<>(properties.size());
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                values.add(new StringParameterValue(entry.getKey(), env.expand(entry.getValue())));
+            }
+            return new ParametersAction(values);
+        }
+    }
+
     @Extension
     public static class DescriptorImpl extends AbstractBuildParameterFactoryDescriptor {
         @Override
@@ -17,25 +17,75 @@ import hudson.model.ParametersAction;
 import hudson.model.StringParameterValue;
 import hudson.model.TaskListener;
 import hudson.model.TextParameterValue;
+import hudson.plugins.parameterizedtrigger.matrix.CompiledCombinationFilter;
+import hudson.remoting.VirtualChannel;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
+import hudson.util.NamingThreadFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
 import jenkins.util.VirtualFile;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
+import org.springframework.security.core.Authentication;
 
 public class FileBuildParameters extends AbstractBuildParameters {
+    /**
+     * Bounded pool reading the files of matrix runs, shared by all triggers, created on first use.
+     */
+    private static final class TargetBuildReader {
+        private static final ExecutorService POOL;
+
+        static {
+            int threads =
+                    Math.max(1, Integer.getInteger(FileBuildParameters.class.getName() + ".readerThreads", 8));
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    threads,
+                    threads,
+                    60L,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "FileBuildParameters.reader"));
+            pool.allowCoreThreadTimeOut(true);
+            POOL = pool;
+        }
+    }
+
+    /**
+     * Properties files larger than this many bytes fail the trigger instead of being read, 0 for no limit.
+     */
+    static final long MAX_FILE_SIZE =
+            Long.getLong(FileBuildParameters.class.getName() + ".maxFileSize", 16L * 1024 * 1024);
+
     private final String propertiesFile;
     private final String encoding;
     private final boolean failTriggerOnMissing;
@@ -113,25 +163,81 @@ public class FileBuildParameters extends AbstractBuildParameters {
         // builds to scan.
         Collection<? extends AbstractBuild<?, ?>> targetBuilds = getTargetBuilds(build);
 
-        for (AbstractBuild<?, ?> targetBuild : targetBuilds) {
-            values.addAll(extractAllValues(targetBuild, listener, trimmedFiles));
+        if (targetBuilds.size() > 1) {
+            values.addAll(extractAllValuesConcurrently(targetBuilds, listener, trimmedFiles));
+        } else {
+            for (AbstractBuild<?, ?> targetBuild : targetBuilds) {
+                values.addAll(extractAllValues(targetBuild, listener, trimmedFiles));
+            }
+        }
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) instanceof TextParameterValue) {
+                values.set(i, TextParameterReference.of(build, (TextParameterValue) values.get(i)));
+            }
         }
         // Values might be empty, in that case don't return anything.
         return values.size() == 0 ? null : new ParametersAction(values);
     }
 
+    /**
+     * Reads the files of many builds, typically matrix runs, on {@link TargetBuildReader}
+     * so that the agent round trips overlap. Values are merged in the order of {@code targetBuilds}.
+     */
+    private List<ParameterValue> extractAllValuesConcurrently(
+            Collection<? extends AbstractBuild<?, ?>> targetBuilds, TaskListener listener, String[] allFiles)
+            throws IOException, InterruptedException, DontTriggerException {
+        Authentication auth = Jenkins.getAuthentication2();
+        List<Future<List<ParameterValue>>> futures = new ArrayList<>(targetBuilds.size());
+        try {
+            for (AbstractBuild<?, ?> targetBuild : targetBuilds) {
+                futures.add(TargetBuildReader.POOL.submit(() -> {
+                    try (ACLContext ctx = ACL.as2(auth)) {
+                        return extractAllValues(targetBuild, listener, allFiles);
+                    }
+                }));
+            }
+            List<ParameterValue> values = new ArrayList<>();
+            for (Future<List<ParameterValue>> future : futures) {
+                try {
+                    values.addAll(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof DontTriggerException) {
+                        throw (DontTriggerException) cause;
+                    } else if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof InterruptedException) {
+                        throw (InterruptedException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException(cause);
+                }
+            }
+            return values;
+        } finally {
+            // no-op for the completed ones
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
     private List<ParameterValue> extractAllValues(AbstractBuild<?, ?> build, TaskListener listener, String[] allFiles)
             throws IOException, InterruptedException, DontTriggerException {
         List<ParameterValue> values = new ArrayList<>();
         EnvVars env = getEnvironment(build, listener);
         for (String file : allFiles) {
-            String s = null;
+            Map<String, String> p = null;
             VirtualFile artifact = build.getArtifactManager().root().child(file);
             if (artifact.isFile()) {
-                s = ParameterizedTriggerUtils.readFileToString(artifact);
+                try (InputStream in = artifact.open()) {
+                    p = ParameterizedTriggerUtils.toMap(ParameterizedTriggerUtils.loadProperties(
+                            in, Charset.defaultCharset(), MAX_FILE_SIZE, file));
+                }
             }
 
-            if (s == null) {
+            if (p == null) {
                 FilePath workspace = build.getWorkspace();
                 if (workspace == null) {
                     listener.getLogger()
@@ -139,14 +245,11 @@ public class FileBuildParameters extends AbstractBuildParameters {
                                     Plugin.LOG_TAG + " Could not load workspace of build %s%n",
                                     build.getFullDisplayName());
                 } else {
-                    FilePath f = workspace.child(file);
-                    if (f.exists()) {
-                        s = ParameterizedTriggerUtils.readFileToString(f, getEncoding());
-                    }
+                    p = readWorkspaceFile(build, workspace.child(file), file);
                 }
             }
 
-            if (s == null) {
+            if (p == null) {
                 listener.getLogger().println(Plugin.LOG_TAG + " Properties file " + file + " did not exist.");
                 if (getFailTriggerOnMissing()) {
                     listener.getLogger()
@@ -157,40 +260,118 @@ public class FileBuildParameters extends AbstractBuildParameters {
                 continue;
             }
 
-            s = env.expand(s);
-            Properties p = ParameterizedTriggerUtils.loadProperties(s);
-
-            for (Map.Entry<Object, Object> entry : p.entrySet()) {
+            for (Map.Entry<String, String> entry : p.entrySet()) {
+                String key = env.expand(entry.getKey());
+                String s = env.expand(entry.getValue());
                 // support multi-line parameters correctly
-                s = entry.getValue().toString();
                 if (textParamValueOnNewLine && s.contains("\n")) {
-                    values.add(new TextParameterValue(entry.getKey().toString(), s));
+                    values.add(new TextParameterValue(key, s));
                 } else {
-                    values.add(new StringParameterValue(entry.getKey().toString(), s));
+                    values.add(new StringParameterValue(key, s));
                 }
             }
         }
         return values;
     }
 
+    /**
+     * Reads a properties file from the workspace in a single call. The agent is told the digests of the content the
+     * build's job last read from that file, and only sends the file if it changed, so an unchanged file is taken from
+     * {@link ParsedPropertiesCache} without being sent or parsed.
+     *
+     * @return the properties, or null if the file does not exist.
+     */
+    private Map<String, String> readWorkspaceFile(AbstractBuild<?, ?> build, FilePath f, String file)
+            throws IOException, InterruptedException {
+        String charset = encoding != null ? encoding : Charset.defaultCharset().name();
+        ParsedPropertiesCache cache = ParsedPropertiesCache.get();
+        String reader = build.getParent().getFullName() + '\n' + file;
+        FileContent content = f.act(new ReadFile(MAX_FILE_SIZE, file, cache.getKnownDigests(reader, charset)));
+        if (content == null) {
+            return null;
+        }
+        Map<String, String> p = cache.lookup(content.digest, charset);
+        if (p == null) {
+            if (content.bytes == null) {
+                // evicted since, read it again
+                content = f.act(new ReadFile(MAX_FILE_SIZE, file, Collections.emptySet()));
+                if (content == null) {
+                    return null;
+                }
+            }
+            Properties properties = ParameterizedTriggerUtils.loadProperties(
+                    new ByteArrayInputStream(content.bytes), Charset.forName(charset), 0, file);
+            p = cache.put(content.digest, charset, ParameterizedTriggerUtils.toMap(properties));
+        }
+        cache.setSeenDigests(reader, Collections.singleton(content.digest));
+        return p;
+    }
+
+    /**
+     * SHA-256 of a file, with its content unless the digest is one of those known already, or null if the file does
+     * not exist.
+     */
+    private static final class ReadFile extends MasterToSlaveFileCallable<FileContent> {
+        private static final long serialVersionUID = 1L;
+
+        private final long maxBytes;
+        private final String name;
+        private final HashSet<String> known;
+
+        ReadFile(long maxBytes, String name, Set<String> known) {
+            this.maxBytes = maxBytes;
+            this.name = name;
+            this.known = new HashSet<>(known);
+        }
+
+        @Override
+        public FileContent invoke(File f, VirtualChannel channel) throws IOException {
+            if (!f.isFile()) {
+                return null;
+            }
+            try (InputStream in = Files.newInputStream(f.toPath())) {
+                byte[] bytes = ParameterizedTriggerUtils.readFully(in, maxBytes, name);
+                String digest = ParameterizedTriggerUtils.sha256(bytes);
+                return new FileContent(known.contains(digest) ? null : bytes, digest);
+            }
+        }
+    }
+
+    private static final class FileContent implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** Null if the digest was known to the caller. */
+        private final byte[] bytes;
+
+        private final String digest;
+
+        FileContent(byte[] bytes, String digest) {
+            this.bytes = bytes;
+            this.digest = digest;
+        }
+    }
+
     private Collection<? extends AbstractBuild<?, ?>> getTargetBuilds(AbstractBuild<?, ?> build) {
         if ((build instanceof MatrixBuild) && isUseMatrixChild()) {
             Stream<MatrixRun> buildsStream = isOnlyExactRuns()
                     ? ((MatrixBuild) build).getExactRuns().stream()
                     : ((MatrixBuild) build).getRuns().stream();
+            CompiledCombinationFilter filter = StringUtils.isBlank(getCombinationFilter())
+                    ? null
+                    : CompiledCombinationFilter.compile(getCombinationFilter());
             return buildsStream
                     .filter(run -> {
                         if (run == null) {
                             return false;
                         }
-                        if (StringUtils.isBlank(getCombinationFilter())) {
+                        if (filter == null) {
                             // no combination filter stands for all children.
                             return true;
                         }
                         Combination c = run.getParent().getCombination();
                         AxisList axes = run.getParent().getParent().getAxes();
 
-                        return c.evalGroovyExpression(axes, getCombinationFilter());
+                        return filter.matches(axes, c);
                     })
                     .collect(Collectors.toList());
 
@@ -0,0 +1,299 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.BuildListener;
+import hudson.model.Node;
+import hudson.model.ParameterValue;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.tasks.BuildWrapper;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+
+/**
+ * File parameter left in a staging directory of the node that produced it, for
+ * {@link BinaryFileParameterFactory#isKeepOnNode()}.
+ *
+ * <p>
+ * A triggered build running on that node copies the file into its workspace locally. One running elsewhere gets
+ * it from the node through the controller, as long as the node is online, which is why files are not kept on nodes
+ * that may go away, see {@link BinaryFileParameterFactory}. Unlike {@link hudson.model.FileParameterValue}, no copy
+ * is kept with the triggered build, since that would send the file to the controller.
+ */
+public class NodeLocalFileParameterValue extends ParameterValue {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Staged files not used within this many minutes are deleted when files are staged again on the node, and by
+     * {@link Cleanup}.
+     */
+    private static final long STAGING_RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(
+            Long.getLong(NodeLocalFileParameterValue.class.getName() + ".stagingRetentionMinutes", 1440));
+
+    static final String STAGING_DIR = "parameterized-trigger-staging";
+
+    /**
+     * Name of the node holding the file, empty for the built-in node.
+     */
+    private final String node;
+
+    /**
+     * Path of the staged file on {@link #node}.
+     */
+    private final String path;
+
+    private final String originalFileName;
+
+    public NodeLocalFileParameterValue(String name, String node, String path, String originalFileName) {
+        super(name);
+        this.node = node;
+        this.path = path;
+        this.originalFileName = originalFileName;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+
+    @Override
+    public void buildEnvironment(Run<?, ?> build, EnvVars env) {
+        // same as FileParameterValue
+        env.put(name, originalFileName);
+    }
+
+    @Override
+    public BuildWrapper createBuildWrapper(AbstractBuild<?, ?> build) {
+        return new BuildWrapper() {
+            @Override
+            public Environment setUp(AbstractBuild build, Launcher launcher, BuildListener listener)
+                    throws IOException, InterruptedException {
+                FilePath workspace = build.getWorkspace();
+                if (workspace == null) {
+                    throw new IOException("Cannot copy " + name + ", the build has no workspace");
+                }
+                FilePath target = workspace.child(name);
+                FilePath staged = getStagedFile();
+                if (node.equals(build.getBuiltOnStr())) {
+                    listener.getLogger().println("Copying file to " + name + " from this node");
+                    staged.act(new CopyTo(target.getRemote()));
+                } else {
+                    listener.getLogger()
+                            .println("Copying file to " + name + " from " + getNodeDisplayName()
+                                    + " through the controller");
+                    target.getParent().mkdirs();
+                    target.copyFrom(staged);
+                }
+                return new Environment() {};
+            }
+        };
+    }
+
+    private FilePath getStagedFile() throws IOException {
+        Jenkins j = Jenkins.get();
+        Node n = node.isEmpty() ? j : j.getNode(node);
+        VirtualChannel channel = n != null ? n.getChannel() : null;
+        if (channel == null) {
+            throw new IOException("Cannot get " + originalFileName + ", " + getNodeDisplayName() + " is offline");
+        }
+        return new FilePath(channel, path);
+    }
+
+    private String getNodeDisplayName() {
+        return node.isEmpty() ? "the built-in node" : node;
+    }
+
+    @Override
+    public String getShortDescription() {
+        return name + "=" + originalFileName + " (on " + getNodeDisplayName() + ")";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!super.equals(o) || getClass() != o.getClass()) {
+            return false;
+        }
+        NodeLocalFileParameterValue other = (NodeLocalFileParameterValue) o;
+        return node.equals(other.node) && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), node, path);
+    }
+
+    /**
+     * Copies workspace files into the staging directory of their node, by content.
+     */
+    static final class Stage extends MasterToSlaveFileCallable<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> paths;
+        private final List<String> digests;
+        private final String stagingDir;
+        private final long retentionMillis;
+
+        Stage(List<String> paths, List<String> digests, String stagingDir) {
+            this.paths = paths;
+            this.digests = digests;
+            this.stagingDir = stagingDir;
+            this.retentionMillis = STAGING_RETENTION_MILLIS;
+        }
+
+        /**
+         * @return the staged path of each of {@link #paths}.
+         */
+        @Override
+        public List<String> invoke(File workspace, VirtualChannel channel) throws IOException {
+            Path staging = new File(stagingDir).toPath();
+            Files.createDirectories(staging);
+            long now = System.currentTimeMillis();
+            List<String> staged = new ArrayList<>(paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                File f = staging.resolve(digests.get(i)).toFile();
+                if (!f.setLastModified(now)) {
+                    Path tmp = Files.createTempFile(staging, digests.get(i), ".tmp");
+                    try {
+                        Files.copy(
+                                new File(workspace, paths.get(i)).toPath(), tmp, StandardCopyOption.REPLACE_EXISTING);
+                        Files.move(tmp, f.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // staged concurrently by another build
+                    } finally {
+                        Files.deleteIfExists(tmp);
+                    }
+                }
+                staged.add(f.getPath());
+            }
+
+            purge(staging, now - retentionMillis);
+            return staged;
+        }
+    }
+
+    /**
+     * Deletes the files of {@code staging} last used before {@code before}.
+     *
+     * @return the number of files deleted.
+     */
+    static int purge(Path staging, long before) throws IOException {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(staging)) {
+            for (Path f : files) {
+                if (Files.getLastModifiedTime(f).toMillis() < before && Files.deleteIfExists(f)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes the staged files of a node not used within the retention period.
+     */
+    private static final class Purge extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final long retentionMillis;
+
+        Purge(long retentionMillis) {
+            this.retentionMillis = retentionMillis;
+        }
+
+        @Override
+        public Integer invoke(File staging, VirtualChannel channel) throws IOException {
+            if (!staging.isDirectory()) {
+                return 0;
+            }
+            return purge(staging.toPath(), System.currentTimeMillis() - retentionMillis);
+        }
+    }
+
+    /**
+     * Purges the staging directories of the online nodes, which would otherwise keep their files until the next
+     * files are staged on them.
+     */
+    @Extension
+    public static class Cleanup extends AsyncPeriodicWork {
+        public Cleanup() {
+            super("Parameterized Trigger staged file cleanup");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return HOUR;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            Jenkins j = Jenkins.get();
+            List<Node> nodes = new ArrayList<>(j.getNodes());
+            nodes.add(j);
+            for (Node node : nodes) {
+                FilePath root = node.getRootPath();
+                if (root == null) {
+                    // offline, purged when files are staged on it again
+                    continue;
+                }
+                try {
+                    int deleted = root.child(STAGING_DIR).act(new Purge(STAGING_RETENTION_MILLIS));
+                    if (deleted > 0) {
+                        listener.getLogger()
+                                .println("Deleted " + deleted + " staged files on " + node.getDisplayName());
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace(listener.error("Failed to purge the staged files on " + node.getDisplayName()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a staged file to a path of the same node.
+     */
+    private static final class CopyTo extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final String target;
+
+        CopyTo(String target) {
+            this.target = target;
+        }
+
+        @Override
+        public Void invoke(File staged, VirtualChannel channel) throws IOException {
+            Path dst = new File(target).toPath();
+            Files.createDirectories(dst.getParent());
+            // a copy, the build may change its workspace
+            Files.copy(staged.toPath(), dst, StandardCopyOption.REPLACE_EXISTING);
+            return null;
+        }
+    }
+}
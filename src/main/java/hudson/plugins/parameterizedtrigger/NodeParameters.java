@@ -5,12 +5,24 @@
 package hudson.plugins.parameterizedtrigger;
 
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.AbstractBuild;
 import hudson.model.Action;
+import hudson.model.Computer;
 import hudson.model.Descriptor;
 import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.Run;
 import hudson.model.TaskListener;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
 import jenkins.model.Jenkins;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -21,8 +33,46 @@ import org.kohsuke.stapler.DataBoundConstructor;
  */
 public class NodeParameters extends AbstractBuildParameters {
 
+    /**
+     * End of the wait for an idle executor by triggering build, so that all the builds it triggers, one per
+     * parameter set, wait once between them.
+     */
+    private static final Map<Run<?, ?>, Long> DEADLINES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Whether to move to the least loaded node matching {@link #fallbackLabel} when this node stays busy.
+     */
+    private final boolean preferSameNode;
+
+    private final String fallbackLabel;
+
+    /**
+     * How long to wait for an idle executor on this node before falling back, in seconds.
+     */
+    private final int waitSeconds;
+
     @DataBoundConstructor
-    public NodeParameters() {}
+    public NodeParameters(boolean preferSameNode, String fallbackLabel, int waitSeconds) {
+        this.preferSameNode = preferSameNode;
+        this.fallbackLabel = Util.fixEmptyAndTrim(fallbackLabel);
+        this.waitSeconds = waitSeconds;
+    }
+
+    public NodeParameters() {
+        this(false, null, 0);
+    }
+
+    public boolean isPreferSameNode() {
+        return preferSameNode;
+    }
+
+    public String getFallbackLabel() {
+        return fallbackLabel;
+    }
+
+    public int getWaitSeconds() {
+        return waitSeconds;
+    }
 
     @Override
     public Action getAction(AbstractBuild<?, ?> build, TaskListener listener)
@@ -38,10 +88,123 @@ public class NodeParameters extends AbstractBuildParameters {
             nodeLabel = Label.get(nodeName);
             nodeDisplayName = nodeLabel != null ? nodeLabel.getDisplayName() : "null label of " + nodeName;
         }
+        if (preferSameNode && !hasIdleExecutor(build, listener)) {
+            Node node = getLeastLoadedNode(build, listener);
+            if (node != null) {
+                return new NodeAction(node.getSelfLabel());
+            }
+        }
         listener.getLogger().println("Returning node parameter for " + nodeDisplayName);
         return new NodeAction(nodeLabel);
     }
 
+    /**
+     * Waits up to {@link #waitSeconds} after the first call for {@code build} for an idle executor on its node, not
+     * counting those the builds queued for that node will take.
+     *
+     * <p>
+     * The wait polls the idle executors of the node, and only looks at the queue again when their number changes,
+     * as a queued build may have started on one.
+     */
+    private boolean hasIdleExecutor(AbstractBuild<?, ?> build, TaskListener listener) throws InterruptedException {
+        Node node = build.getBuiltOn();
+        Computer c = node != null ? node.toComputer() : null;
+        long deadline =
+                DEADLINES.computeIfAbsent(build, b -> System.nanoTime() + TimeUnit.SECONDS.toNanos(waitSeconds));
+        int idle = -1;
+        int queued = 0;
+        while (c != null && c.isOnline()) {
+            int nowIdle = c.countIdle();
+            if (nowIdle != idle) {
+                idle = nowIdle;
+                queued = idle > 0 ? countQueued().getOrDefault(node.getSelfLabel(), 0) : queued;
+            }
+            if (idle > queued) {
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+            Thread.sleep(250);
+        }
+        listener.getLogger()
+                .println(Plugin.LOG_TAG + " " + (c != null ? c.getDisplayName() : "The node of this build")
+                        + " has no idle executor after " + waitSeconds + " s");
+        return false;
+    }
+
+    /**
+     * @return the number of queued builds by node label they were assigned to by a {@link NodeAction}, such as the
+     *      ones already triggered with other parameters by the same build.
+     */
+    private static Map<Label, Integer> countQueued() {
+        Map<Label, Integer> queued = new HashMap<>();
+        for (Queue.Item item : Queue.getInstance().getItems()) {
+            NodeAction a = item.getAction(NodeAction.class);
+            Label label = a != null ? a.getAssignedLabel(item.task) : null;
+            if (label != null) {
+                queued.merge(label, 1, Integer::sum);
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * @return the online node matching {@link #fallbackLabel} with the smallest share of busy executors, counting
+     *      the builds queued for it as busy, or null if there is none.
+     */
+    private Node getLeastLoadedNode(AbstractBuild<?, ?> build, TaskListener listener)
+            throws IOException, InterruptedException {
+        Jenkins j = Jenkins.get();
+        Collection<Node> candidates;
+        String expression = null;
+        if (fallbackLabel != null) {
+            expression = build.getEnvironment(listener).expand(fallbackLabel);
+            Label label = j.getLabel(expression);
+            candidates = label != null ? label.getNodes() : Collections.emptySet();
+        } else {
+            candidates = new ArrayList<>(j.getNodes());
+            candidates.add(j);
+        }
+
+        Map<Label, Integer> queued = countQueued();
+        Node best = null;
+        int bestBusy = 0;
+        int bestTotal = 0;
+        int online = 0;
+        for (Node node : candidates) {
+            Computer c = node.toComputer();
+            if (c == null || !c.isOnline() || !c.isAcceptingTasks()) {
+                continue;
+            }
+            // one snapshot of each computer, its load changes while we look
+            int total = c.countExecutors();
+            int busy = total - c.countIdle() + queued.getOrDefault(node.getSelfLabel(), 0);
+            if (total == 0) {
+                continue;
+            }
+            online++;
+            // busy / total < bestBusy / bestTotal, or fewer busy executors for the same share
+            long cmp = best == null ? -1 : (long) busy * bestTotal - (long) bestBusy * total;
+            if (cmp < 0 || (cmp == 0 && busy < bestBusy)) {
+                best = node;
+                bestBusy = busy;
+                bestTotal = total;
+            }
+        }
+
+        String among = online + " online nodes" + (expression != null ? " matching " + expression : "");
+        if (best == null) {
+            listener.getLogger()
+                    .println(Plugin.LOG_TAG + " No other node to build on among " + among + ", keeping this one");
+        } else {
+            listener.getLogger()
+                    .println(Plugin.LOG_TAG + " Building on " + best.getSelfLabel().getDisplayName() + ", " + bestBusy
+                            + " of " + bestTotal + " executors busy, the least loaded of " + among);
+        }
+        return best;
+    }
+
     @Extension
     public static class DescriptorImpl extends Descriptor<AbstractBuildParameters> {
         @Override
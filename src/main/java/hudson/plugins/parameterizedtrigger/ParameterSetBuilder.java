@@ -0,0 +1,50 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Collects parameter values from several sources into one {@link ParametersAction}, the last value added for a
+ * name replacing the earlier ones while keeping their position.
+ *
+ * <p>
+ * This is what chaining {@link ParameterizedTriggerUtils#mergeParameters(ParametersAction, ParametersAction)}
+ * does, without building an intermediate action for every source.
+ */
+@Restricted(NoExternalUse.class)
+public final class ParameterSetBuilder {
+
+    private final LinkedHashMap<String, ParameterValue> values = new LinkedHashMap<>();
+
+    public ParameterSetBuilder add(ParametersAction a) {
+        return addAll(a.getParameters());
+    }
+
+    public ParameterSetBuilder addAll(Collection<? extends ParameterValue> parameters) {
+        for (ParameterValue p : parameters) {
+            add(p);
+        }
+        return this;
+    }
+
+    public ParameterSetBuilder add(ParameterValue p) {
+        values.put(p.getName(), p);
+        return this;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * @return a new action with the values collected so far, which the builder keeps for further use.
+     */
+    public ParametersAction build() {
+        return new ParametersAction(new ArrayList<>(values.values()));
+    }
+}
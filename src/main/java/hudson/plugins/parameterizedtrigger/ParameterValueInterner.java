@@ -0,0 +1,85 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.model.Action;
+import hudson.model.BooleanParameterValue;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.StringParameterValue;
+import hudson.model.TextParameterValue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Shares equal parameter values between the builds of one fan-out, so that the values common to all of them,
+ * such as those of the triggering build, are held once rather than once per queued item.
+ *
+ * <p>
+ * Every build still gets its own {@link ParametersAction}, only the values in it are shared, and only those of
+ * types known to be immutable once created. The queue compares actions by value, so it behaves the same.
+ */
+@Restricted(NoExternalUse.class)
+public final class ParameterValueInterner {
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES =
+            Set.of(StringParameterValue.class, TextParameterValue.class, BooleanParameterValue.class);
+
+    private final Map<List<Object>, ParameterValue> values = new HashMap<>();
+
+    /**
+     * @return {@code actions}, with the values of its {@link ParametersAction} replaced by equal ones seen before.
+     */
+    public List<Action> intern(List<Action> actions) {
+        List<Action> result = actions;
+        for (int i = 0; i < actions.size(); i++) {
+            if (actions.get(i) instanceof ParametersAction) {
+                ParametersAction a = (ParametersAction) actions.get(i);
+                ParametersAction interned = intern(a);
+                if (interned != a) {
+                    if (result == actions) {
+                        result = new ArrayList<>(actions);
+                    }
+                    result.set(i, interned);
+                }
+            }
+        }
+        return result;
+    }
+
+    private ParametersAction intern(ParametersAction a) {
+        List<ParameterValue> parameters = a.getParameters();
+        List<ParameterValue> interned = null;
+        for (int i = 0; i < parameters.size(); i++) {
+            ParameterValue p = parameters.get(i);
+            ParameterValue shared = intern(p);
+            if (shared != p && interned == null) {
+                interned = new ArrayList<>(parameters);
+            }
+            if (interned != null) {
+                interned.set(i, shared);
+            }
+        }
+        return interned != null ? new ParametersAction(interned) : a;
+    }
+
+    private ParameterValue intern(ParameterValue p) {
+        if (!IMMUTABLE_TYPES.contains(p.getClass())) {
+            return p;
+        }
+        List<Object> key = Arrays.asList(p.getClass(), p.getName(), p.getValue(), p.getDescription());
+        ParameterValue shared = values.putIfAbsent(key, p);
+        return shared != null ? shared : p;
+    }
+
+    /**
+     * @return the number of distinct values seen so far.
+     */
+    public int size() {
+        return values.size();
+    }
+}
@@ -6,6 +6,7 @@ import hudson.model.Action;
 import hudson.model.DependencyGraph;
 import hudson.model.DependencyGraph.Dependency;
 import hudson.model.TaskListener;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -58,14 +59,14 @@ public class ParameterizedDependency extends Dependency {
             return false;
         }
         try {
-            List<Action> actionList = config.getBaseActions(build, listener);
+            List<Action> actionList = BaseActionsCache.getBaseActions(config, build, listener);
             if (!actionList.isEmpty()) {
                 actions.addAll(config.getBuildActions(actionList, getDownstreamProject()));
-                return true;
+                return trigger(build, listener, actions);
             }
 
             if (config.getTriggerWithNoParameters()) {
-                return true;
+                return trigger(build, listener, actions);
             }
             listener.getLogger()
                     .println(Plugin.LOG_TAG + " Downstream builds will not be triggered as no parameter is set.");
@@ -80,4 +81,30 @@ public class ParameterizedDependency extends Dependency {
             return false;
         }
     }
+
+    /**
+     * @return true to let the dependency graph schedule the build, false if it was scheduled already, by opening the
+     *      build held by {@link PreQueueGate} or through {@link AdmissionControl}, or if a recent run was reused.
+     */
+    private boolean trigger(AbstractBuild build, TaskListener listener, List<Action> actions)
+            throws IOException, InterruptedException {
+        if (config.getAvoidance() != null) {
+            // a build held by PreQueueGate and not taken is cancelled once this build is finalized
+            config.scheduleOrReuse(build, getDownstreamProject(), actions, listener);
+            return false;
+        }
+        if (PreQueueGate.open(build, getDownstreamProject(), config, actions) != null) {
+            listener.getLogger()
+                    .println(Plugin.LOG_TAG + " Triggering " + getDownstreamProject().getFullDisplayName()
+                            + ", queued ahead of time");
+            return false;
+        }
+        if (!AdmissionControl.isEnabled()) {
+            return true;
+        }
+        listener.getLogger()
+                .println(Plugin.LOG_TAG + " Triggering a new build of " + getDownstreamProject().getFullDisplayName());
+        config.schedule(build, getDownstreamProject(), actions, listener);
+        return false;
+    }
 }
@@ -25,12 +25,18 @@
 package hudson.plugins.parameterizedtrigger;
 
 import hudson.FilePath;
-import hudson.model.ParameterValue;
+import hudson.Util;
 import hudson.model.ParametersAction;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 import jenkins.util.VirtualFile;
 import org.apache.commons.io.IOUtils;
@@ -52,6 +58,39 @@ public class ParameterizedTriggerUtils {
         return p;
     }
 
+    /**
+     * Load properties from a stream, without reading it into a string first.
+     *
+     * @param in stream to read, closed by the caller.
+     * @param charset charset of the stream.
+     * @param maxBytes maximum number of bytes to read, unlimited if not positive.
+     * @param name name of the file, for the error message.
+     * @throws IOException on IO error, or if the stream is larger than {@code maxBytes}.
+     */
+    public static Properties loadProperties(InputStream in, Charset charset, long maxBytes, String name)
+            throws IOException {
+        if (maxBytes > 0) {
+            in = new SizeLimitedInputStream(in, maxBytes, name);
+        }
+        Properties p = new Properties();
+        p.load(new InputStreamReader(in, charset));
+        return p;
+    }
+
+    /**
+     * Reads the remaining content of a stream, which is left open.
+     *
+     * @param maxBytes maximum number of bytes to read, unlimited if not positive.
+     * @param name name of the file, for the error message.
+     * @throws IOException on IO error, or if the stream is larger than {@code maxBytes}.
+     */
+    static byte[] readFully(InputStream in, long maxBytes, String name) throws IOException {
+        if (maxBytes > 0) {
+            in = new SizeLimitedInputStream(in, maxBytes, name);
+        }
+        return IOUtils.toByteArray(in);
+    }
+
     /**
      * {@link FilePath#readToString()} with encoding.
      *
@@ -79,10 +118,91 @@ public class ParameterizedTriggerUtils {
         }
     }
 
+    /**
+     * @return the properties as an insertion ordered map of strings.
+     */
+    static LinkedHashMap<String, String> toMap(Properties p) {
+        LinkedHashMap<String, String> properties = new LinkedHashMap<>();
+        for (Map.Entry<Object, Object> entry : p.entrySet()) {
+            properties.put(entry.getKey().toString(), entry.getValue().toString());
+        }
+        return properties;
+    }
+
+    /**
+     * @return hex SHA-256 of the content.
+     */
+    static String sha256(byte[] content) {
+        return Util.toHexString(newSha256().digest(content));
+    }
+
+    /**
+     * @return hex SHA-256 of the remaining content of the stream, which is left open.
+     * @throws IOException on IO error
+     */
+    static String sha256(InputStream in) throws IOException {
+        MessageDigest md = newSha256();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) >= 0) {
+            md.update(buf, 0, n);
+        }
+        return Util.toHexString(md.digest());
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is a required algorithm", e);
+        }
+    }
+
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private final String name;
+        private long read;
+
+        SizeLimitedInputStream(InputStream in, long maxBytes, String name) {
+            super(in);
+            this.maxBytes = maxBytes;
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            read += n;
+            if (read > maxBytes) {
+                throw new IOException(name + " is larger than the maximum of " + maxBytes + " bytes");
+            }
+        }
+    }
+
     public static ParametersAction mergeParameters(ParametersAction base, ParametersAction overlay) {
-        LinkedHashMap<String, ParameterValue> params = new LinkedHashMap<>();
-        for (ParameterValue param : base.getParameters()) params.put(param.getName(), param);
-        for (ParameterValue param : overlay.getParameters()) params.put(param.getName(), param);
-        return new ParametersAction(params.values().toArray(new ParameterValue[0]));
+        return new ParameterSetBuilder().add(base).add(overlay).build();
     }
 }
@@ -0,0 +1,192 @@
+package hudson.plugins.parameterizedtrigger;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Controller-wide LRU cache of parsed properties files, keyed by the SHA-256 of their content.
+ *
+ * <p>
+ * Upstream jobs often produce the same properties files from build to build. The digests each reader last saw are
+ * remembered too, and sent along when it reads the files again, so the content of a file the agent finds unchanged is
+ * neither sent nor parsed. The cache is bounded by number of entries and by an estimate of the memory held; setting
+ * either limit to 0 disables it.
+ *
+ * <p>
+ * The hit and miss counts are logged at {@code FINE}, and can be read from the script console with
+ * {@code hudson.plugins.parameterizedtrigger.ParsedPropertiesCache.get()}.
+ */
+@Restricted(NoExternalUse.class)
+public final class ParsedPropertiesCache {
+    private static final Logger LOGGER = Logger.getLogger(ParsedPropertiesCache.class.getName());
+
+    private static final ParsedPropertiesCache INSTANCE = new ParsedPropertiesCache(
+            Integer.getInteger(ParsedPropertiesCache.class.getName() + ".maxEntries", 1000),
+            Long.getLong(ParsedPropertiesCache.class.getName() + ".maxBytes", 32L * 1024 * 1024));
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Digests last seen by each reader, such as a job reading a given file, least recently updated first.
+     */
+    private final LinkedHashMap<String, Set<String>> seen = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    ParsedPropertiesCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public static ParsedPropertiesCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param digest hex SHA-256 of the file content.
+     * @param charset name of the charset the file is decoded with.
+     * @return the cached properties, or null.
+     */
+    synchronized Map<String, String> lookup(String digest, String charset) {
+        Entry e = entries.get(key(digest, charset));
+        if (e == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(
+                    Level.FINE,
+                    (e != null ? "Hit" : "Miss") + " for " + digest + ", " + hits + " hits and " + misses
+                            + " misses so far, " + entries.size() + " entries of " + bytes + " bytes");
+        }
+        return e != null ? e.properties : null;
+    }
+
+    /**
+     * @return an unmodifiable view of {@code properties}, which callers should use from then on.
+     */
+    synchronized Map<String, String> put(String digest, String charset, Map<String, String> properties) {
+        Map<String, String> p = Collections.unmodifiableMap(properties);
+        long size = estimateSize(properties);
+        if (maxEntries <= 0 || size > maxBytes) {
+            return p;
+        }
+        Entry old = entries.put(key(digest, charset), new Entry(p, size));
+        if (old != null) {
+            bytes -= old.size;
+        }
+        bytes += size;
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+            bytes -= it.next().size;
+            it.remove();
+        }
+        return p;
+    }
+
+    /**
+     * @param reader what reads the files, such as a job and a file name.
+     * @param charset name of the charset the files are decoded with.
+     * @return the digests {@code reader} last saw whose properties are still cached.
+     */
+    synchronized Set<String> getKnownDigests(String reader, String charset) {
+        Set<String> r = new HashSet<>();
+        Set<String> digests = seen.get(reader);
+        if (digests != null) {
+            for (String digest : digests) {
+                if (entries.containsKey(key(digest, charset))) {
+                    r.add(digest);
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Records the digests of the files {@code reader} read, for {@link #getKnownDigests} to return next time.
+     */
+    synchronized void setSeenDigests(String reader, Collection<String> digests) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        seen.put(reader, new HashSet<>(digests));
+        Iterator<Set<String>> it = seen.values().iterator();
+        while (seen.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * @return number of lookups that found the properties, since startup.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups that did not find the properties, since startup.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return estimate of the memory held by the cached properties, in bytes.
+     */
+    public synchronized long getSize() {
+        return bytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        seen.clear();
+        bytes = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ParsedPropertiesCache[" + hits + " hits, " + misses + " misses, " + entries.size() + " entries, "
+                + bytes + " bytes]";
+    }
+
+    private static String key(String digest, String charset) {
+        return digest + '/' + charset;
+    }
+
+    private static long estimateSize(Map<String, String> properties) {
+        long size = 64;
+        for (Map.Entry<String, String> e : properties.entrySet()) {
+            size += 64 + 2L * (e.getKey().length() + e.getValue().length());
+        }
+        return size;
+    }
+
+    private static final class Entry {
+        private final Map<String, String> properties;
+        private final long size;
+
+        Entry(Map<String, String> properties, long size) {
+            this.properties = properties;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.CauseAction;
+import hudson.model.InvisibleAction;
+import hudson.model.Job;
+import hudson.model.Node;
+import hudson.model.PeriodicWork;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
+import hudson.model.queue.QueueTaskFuture;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.ParameterizedJobMixIn;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Queues the builds of a {@link BuildTrigger#isPreQueue()} trigger when the triggering build starts, held by
+ * {@link Dispatcher} until the trigger fires.
+ *
+ * <p>
+ * The held builds are buildable, so clouds provision agents for them while the triggering build runs. When the
+ * trigger fires, the first build it schedules of each project takes the held one, with the final actions. Held
+ * builds not taken are cancelled once the triggering build is finalized, after the trigger and the dependency graph
+ * have run.
+ */
+@Restricted(NoExternalUse.class)
+public final class PreQueueGate {
+    private static final Logger LOGGER = Logger.getLogger(PreQueueGate.class.getName());
+
+    private PreQueueGate() {}
+
+    /**
+     * Queues a held build of each project of the pre-queueing triggers of {@code build}.
+     */
+    static void preQueue(AbstractBuild<?, ?> build, TaskListener listener) throws IOException, InterruptedException {
+        BuildTrigger trigger = build.getProject().getPublishersList().get(BuildTrigger.class);
+        if (trigger == null || !trigger.isPreQueue() || build.getRootBuild() != build) {
+            return;
+        }
+        EnvVars env = build.getEnvironment(listener);
+        List<BuildTriggerConfig> configs = trigger.getConfigs();
+        for (int i = 0; i < configs.size(); i++) {
+            BuildTriggerConfig config = configs.get(i);
+            for (Job<?, ?> project : config.getJobs(build.getProject().getParent(), env)) {
+                if (!(project instanceof ParameterizedJobMixIn.ParameterizedJob)
+                        || !config.canBeScheduled(project)
+                        || !BuildTriggerConfig.canTriggerProject(build, project, listener)) {
+                    continue;
+                }
+                ParameterizedJobMixIn<?, ?> mixIn = new ParameterizedJobMixIn() {
+                    @Override
+                    protected Job<?, ?> asJob() {
+                        return project;
+                    }
+                };
+                Gate gate = new Gate(build, i);
+                // held anyway, a quiet period would only keep clouds from seeing it
+                if (mixIn.scheduleBuild2(0, new CauseAction(config.createUpstreamCause(build)), gate) != null) {
+                    listener.getLogger()
+                            .println(Plugin.LOG_TAG + " Queued " + project.getFullDisplayName()
+                                    + " ahead of time, held until this build finishes");
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets the held build of {@code project} by {@code config} run, with {@code actions}.
+     *
+     * @return the future of the held build, or null if there is none.
+     */
+    static QueueTaskFuture<?> open(
+            AbstractBuild<?, ?> build, Job<?, ?> project, BuildTriggerConfig config, List<Action> actions) {
+        if (!(project instanceof Queue.Task)) {
+            return null;
+        }
+        BuildTrigger trigger = build.getProject().getPublishersList().get(BuildTrigger.class);
+        int index = trigger != null && trigger.isPreQueue() ? indexOf(trigger.getConfigs(), config) : -1;
+        if (index < 0) {
+            return null;
+        }
+        String upstream = build.getExternalizableId();
+        for (Queue.Item item : Queue.getInstance().getItems((Queue.Task) project)) {
+            Gate gate = item.getAction(Gate.class);
+            if (gate != null && !gate.open && gate.upstream.equals(upstream) && gate.config == index) {
+                for (Action a : actions) {
+                    // the upstream cause was given when queueing it
+                    if (!(a instanceof CauseAction)) {
+                        item.addOrReplaceAction(a);
+                    }
+                }
+                // last, the dispatcher lets it run as soon as it is open
+                gate.open = true;
+                Queue.getInstance().scheduleMaintenance();
+                return item.getFuture();
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(List<BuildTriggerConfig> configs, BuildTriggerConfig config) {
+        for (int i = 0; i < configs.size(); i++) {
+            // a TriggerBuilder of the same project has other configs, even equal ones
+            if (configs.get(i) == config) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Cancels the builds held for {@code upstream}, or for triggering builds no longer running if null.
+     */
+    static void cancel(String upstream) {
+        for (Queue.Item item : Queue.getInstance().getItems()) {
+            Gate gate = item.getAction(Gate.class);
+            if (gate == null || gate.open) {
+                continue;
+            }
+            if (upstream != null ? gate.upstream.equals(upstream) : isFinished(gate.upstream)) {
+                if (Queue.getInstance().cancel(item)) {
+                    // the log of the triggering build is closed by now
+                    LOGGER.log(
+                            Level.INFO,
+                            "Cancelled " + item.task.getFullDisplayName() + ", queued ahead of time for "
+                                    + gate.upstreamDisplayName + " but not triggered");
+                }
+            }
+        }
+    }
+
+    private static boolean isFinished(String upstream) {
+        Run<?, ?> r = Run.fromExternalizableId(upstream);
+        // not isBuilding(), the trigger runs in post-production
+        return r == null || !r.isLogUpdated();
+    }
+
+    /**
+     * Holds a build queued ahead of time until {@link #open} is set.
+     */
+    public static class Gate extends InvisibleAction implements Queue.QueueAction {
+        private final String upstream;
+        private final String upstreamDisplayName;
+        private final int config;
+        private volatile boolean open;
+
+        Gate(Run<?, ?> upstream, int config) {
+            this.upstream = upstream.getExternalizableId();
+            this.upstreamDisplayName = upstream.getFullDisplayName();
+            this.config = config;
+        }
+
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean shouldSchedule(List<Action> actions) {
+            // never merged with another build, it must take its own parameters
+            return true;
+        }
+    }
+
+    @Extension
+    public static class Dispatcher extends QueueTaskDispatcher {
+        /**
+         * Blocks on every node rather than in {@link #canRun(Queue.Item)}, so that the build stays buildable and
+         * clouds provision for it.
+         */
+        @Override
+        public CauseOfBlockage canTake(Node node, Queue.BuildableItem item) {
+            Gate gate = item.getAction(Gate.class);
+            if (gate == null || gate.open) {
+                return null;
+            }
+            return CauseOfBlockage.fromMessage(Messages._BuildTrigger_WaitingForUpstream(gate.upstreamDisplayName));
+        }
+    }
+
+    @Extension
+    public static class ListenerImpl extends RunListener<AbstractBuild<?, ?>> {
+        @Override
+        public void onStarted(AbstractBuild<?, ?> build, TaskListener listener) {
+            try {
+                preQueue(build, listener);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to queue the triggered builds of " + build + " ahead of time", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Not {@link #onCompleted}, which comes before the cleanup where the trigger and the dependency graph run.
+         */
+        @Override
+        public void onFinalized(AbstractBuild<?, ?> build) {
+            BuildTrigger trigger = build.getProject().getPublishersList().get(BuildTrigger.class);
+            if (trigger != null && trigger.isPreQueue()) {
+                cancel(build.getExternalizableId());
+            }
+        }
+    }
+
+    /**
+     * Cancels the held builds left over by a restart while their triggering build ran.
+     */
+    @Extension
+    public static class Cleanup extends PeriodicWork {
+        @Override
+        public long getRecurrencePeriod() {
+            return MIN;
+        }
+
+        @Override
+        protected void doRun() {
+            cancel(null);
+        }
+    }
+}
@@ -12,9 +12,9 @@ import hudson.model.TaskListener;
 import hudson.model.TextParameterValue;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 public class PredefinedBuildParameters extends AbstractBuildParameters {
@@ -22,6 +22,21 @@ public class PredefinedBuildParameters extends AbstractBuildParameters {
     private final String properties;
     private final boolean textParamValueOnNewLine;
 
+    /**
+     * {@link #properties} parsed on first use, as they do not change between triggers.
+     */
+    private transient volatile PropertiesTemplate template;
+
+    /**
+     * Values filling the slots of {@link #template}, when the parameters come from a factory.
+     */
+    private transient Map<String, String> slots;
+
+    /**
+     * {@link #properties} of a factory's parameters, built when it is first read.
+     */
+    private transient volatile String text;
+
     @DataBoundConstructor
     public PredefinedBuildParameters(String properties, boolean textParamValueOnNewLine) {
         this.properties = properties;
@@ -32,28 +47,55 @@ public class PredefinedBuildParameters extends AbstractBuildParameters {
         this(properties, false);
     }
 
+    /**
+     * @param template
+     *      properties text already parsed, for factories creating many parameters from the same text.
+     * @param slots
+     *      values filling the slots of {@code template}.
+     */
+    PredefinedBuildParameters(PropertiesTemplate template, Map<String, String> slots) {
+        this(null, false);
+        this.template = template;
+        this.slots = slots;
+    }
+
     public Action getAction(AbstractBuild<?, ?> build, TaskListener listener) throws IOException, InterruptedException {
 
         EnvVars env = getEnvironment(build, listener);
 
-        Properties p = ParameterizedTriggerUtils.loadProperties(getProperties());
-
-        List<ParameterValue> values = new ArrayList<>();
-        for (Map.Entry<Object, Object> entry : p.entrySet()) {
+        Map<String, String> slots = this.slots != null ? this.slots : Collections.emptyMap();
+        List<PropertiesTemplate.Entry> entries = getTemplate().getEntries(slots);
+        List<ParameterValue> values = new ArrayList<>(entries.size());
+        for (PropertiesTemplate.Entry entry : entries) {
             // support multi-line parameters correctly
-            String s = entry.getValue().toString();
-            if (textParamValueOnNewLine && s.contains("\n")) {
-                values.add(new TextParameterValue(entry.getKey().toString(), env.expand(s)));
+            if (textParamValueOnNewLine && entry.isMultiLine()) {
+                values.add(TextParameterReference.of(
+                        build, new TextParameterValue(entry.getName(), entry.expand(slots, env))));
             } else {
-                values.add(new StringParameterValue(entry.getKey().toString(), env.expand(s)));
+                values.add(new StringParameterValue(entry.getName(), entry.expand(slots, env)));
             }
         }
 
         return new ParametersAction(values);
     }
 
+    private PropertiesTemplate getTemplate() throws IOException {
+        PropertiesTemplate t = template;
+        if (t == null) {
+            t = template = PropertiesTemplate.parse(getProperties());
+        }
+        return t;
+    }
+
     public String getProperties() {
-        return properties;
+        if (properties != null || slots == null) {
+            return properties;
+        }
+        String t = text;
+        if (t == null) {
+            t = text = template.getText(slots);
+        }
+        return t;
     }
 
     public boolean getTextParamValueOnNewLine() {
@@ -0,0 +1,364 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.EnvVars;
+import hudson.Util;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Properties text parsed once into keys and values split around their variable references,
+ * so that expanding it for a build is a single pass over the segments.
+ *
+ * <p>
+ * Expansion gives the same result as {@link EnvVars#expand(String)} on each value: {@code $NAME} and
+ * {@code ${NAME}} are replaced when the variable is defined and left as they are otherwise, {@code $$}
+ * becomes {@code $}, and the replaced values are not expanded again.
+ */
+@Restricted(NoExternalUse.class)
+public final class PropertiesTemplate {
+
+    /**
+     * Stands for a slot in the text an {@link Entry} is tokenized from.
+     */
+    private static final char SLOT = '\uFFFF';
+
+    /**
+     * References {@link Util#replaceMacro(String, Map)} replaces, and {@code $$}, which it turns into {@code $}.
+     */
+    private static final Pattern MACRO = Pattern.compile("\\$([A-Za-z0-9_]+|\\{[A-Za-z0-9_.]+\\}|\\$)");
+
+    private final List<Entry> entries;
+
+    /** Text the template was parsed from, for {@link #getText(Map)}. */
+    private final String text;
+
+    /** Slots set as properties of their own ahead of the text, which can override them. */
+    private final List<String> defaults;
+
+    /**
+     * Whether a key refers to a slot, so that which entries there are depends on the slot values.
+     */
+    private final boolean dynamicKeys;
+
+    private PropertiesTemplate(List<Entry> entries, String text, List<String> defaults, boolean dynamicKeys) {
+        this.entries = entries;
+        this.text = text;
+        this.defaults = defaults;
+        this.dynamicKeys = dynamicKeys;
+    }
+
+    public static PropertiesTemplate parse(String properties) throws IOException {
+        return parse(properties, Collections.emptySet(), Collections.emptyList());
+    }
+
+    /**
+     * Parses properties text in which the references to {@code slots} are replaced by the values given on
+     * expansion, as {@link Util#replaceMacro(String, Map)} would replace them in the text, before the variables of
+     * the build are.
+     *
+     * @param properties the text, null for none.
+     * @param slots names of the slots.
+     * @param defaults slots also set as properties of their own, ahead of those of the text.
+     */
+    public static PropertiesTemplate parse(String properties, Set<String> slots, List<String> defaults)
+            throws IOException {
+        Properties p = ParameterizedTriggerUtils.loadProperties(properties != null ? properties : "");
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (String name : defaults) {
+            entries.put(
+                    name,
+                    new Entry(name, String.valueOf(SLOT), Collections.singletonList(name), "${" + name + "}", false));
+        }
+        boolean dynamicKeys = false;
+        for (Map.Entry<Object, Object> e : p.entrySet()) {
+            String name = e.getKey().toString();
+            String value = e.getValue().toString();
+            dynamicKeys |= !slots.isEmpty() && name.indexOf('$') >= 0;
+            entries.remove(name);
+            entries.put(name, slots.isEmpty() ? new Entry(name, value) : Entry.withSlots(name, value, slots));
+        }
+        return new PropertiesTemplate(
+                Collections.unmodifiableList(new ArrayList<>(entries.values())),
+                properties,
+                defaults,
+                dynamicKeys);
+    }
+
+    /**
+     * @return the entries of a template without slots.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the entries, with the names they have for the values of {@code slots}.
+     */
+    public List<Entry> getEntries(Map<String, String> slots) throws IOException {
+        if (!dynamicKeys) {
+            return entries;
+        }
+        // rare enough to parse the text again for each expansion
+        return parse(getText(slots)).getEntries();
+    }
+
+    /**
+     * @return the properties text with the values of {@code slots}, as {@link Util#replaceMacro(String, Map)} gives
+     *      it, preceded by the {@link #defaults}.
+     */
+    public String getText(Map<String, String> slots) {
+        if (defaults.isEmpty()) {
+            return Util.replaceMacro(text, slots);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String name : defaults) {
+            sb.append(name).append('=').append(slots.get(name)).append('\n');
+        }
+        if (text != null) {
+            sb.append(Util.replaceMacro(text, slots));
+        }
+        return sb.toString();
+    }
+
+    public static final class Entry {
+        private final String name;
+        private final String value;
+        private final boolean multiLine;
+
+        /**
+         * Alternating literals and variable names, starting with a literal: {@code segments[2 * i]} is the
+         * literal before the i-th reference, and {@code segments[2 * i + 1]} the name it refers to.
+         */
+        private final String[] segments;
+
+        /**
+         * The text of each reference, used when the variable is not defined, or null for a slot.
+         */
+        private final String[] references;
+
+        /**
+         * The value before the slots are replaced, null if it has none.
+         */
+        private final String raw;
+
+        /**
+         * Whether a slot value could join the text around it into another reference, in which case the
+         * value is tokenized again for each expansion.
+         */
+        private final boolean dynamic;
+
+        Entry(String name, String value) {
+            this(name, value, Collections.emptyList(), null, false);
+        }
+
+        private Entry(String name, String value, List<String> slotNames, String raw, boolean dynamic) {
+            this.name = name;
+            this.value = value;
+            this.multiLine = value.indexOf('\n') >= 0;
+            this.raw = raw;
+            this.dynamic = dynamic;
+
+            List<String> segments = new ArrayList<>();
+            List<String> references = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int slot = 0;
+            int i = 0;
+            while (i < value.length()) {
+                char c = value.charAt(i);
+                int end = c == '$' ? referenceEnd(value, i) : -1;
+                if (c == SLOT && slot < slotNames.size()) {
+                    segments.add(literal.toString());
+                    segments.add(slotNames.get(slot++));
+                    references.add(null);
+                    literal.setLength(0);
+                    i++;
+                } else if (end < 0) {
+                    literal.append(c);
+                    i++;
+                } else if (value.charAt(i + 1) == '$') {
+                    literal.append('$');
+                    i = end;
+                } else {
+                    boolean braced = value.charAt(i + 1) == '{';
+                    segments.add(literal.toString());
+                    segments.add(value.substring(braced ? i + 2 : i + 1, braced ? end - 1 : end));
+                    references.add(value.substring(i, end));
+                    literal.setLength(0);
+                    i = end;
+                }
+            }
+            segments.add(literal.toString());
+            this.segments = segments.toArray(new String[0]);
+            this.references = references.toArray(new String[0]);
+        }
+
+        /**
+         * Replaces the references to {@code slots} as {@link Util#replaceMacro(String, Map)} does, keeping a
+         * slot in their place.
+         */
+        static Entry withSlots(String name, String value, Set<String> slots) {
+            StringBuilder text = new StringBuilder(value.length());
+            List<String> slotNames = new ArrayList<>();
+            boolean dynamic = value.indexOf(SLOT) >= 0;
+            Matcher m = MACRO.matcher(value);
+            int last = 0;
+            while (m.find()) {
+                text.append(value, last, m.start());
+                last = m.end();
+                String macro = m.group(1);
+                String slot = macro.charAt(0) == '{' ? macro.substring(1, macro.length() - 1) : macro;
+                if (macro.equals("$")) {
+                    text.append('$');
+                } else if (!slots.contains(slot)) {
+                    text.append(m.group());
+                } else {
+                    // "$$$COUNT" or "$A$COUNT" refer to another variable once the slot is filled
+                    dynamic |= endsInReference(text);
+                    text.append(SLOT);
+                    slotNames.add(slot);
+                }
+            }
+            text.append(value, last, value.length());
+            if (slotNames.isEmpty() && !dynamic) {
+                return new Entry(name, text.toString());
+            }
+            return new Entry(name, text.toString(), slotNames, value, dynamic);
+        }
+
+        /**
+         * @return whether {@code s} ends within a reference, which text appended to it would extend.
+         */
+        private static boolean endsInReference(CharSequence s) {
+            int i = 0;
+            while (i < s.length()) {
+                if (s.charAt(i) != '$') {
+                    i++;
+                    continue;
+                }
+                if (i + 1 == s.length()) {
+                    return true;
+                }
+                char c = s.charAt(i + 1);
+                if (c == '$') {
+                    i += 2;
+                    continue;
+                }
+                boolean braced = c == '{';
+                int start = braced ? i + 2 : i + 1;
+                int j = start;
+                while (j < s.length() && isNameChar(s.charAt(j), braced)) {
+                    j++;
+                }
+                if (j == s.length()) {
+                    return true;
+                }
+                if (j > start && (!braced || s.charAt(j) == '}')) {
+                    i = braced ? j + 1 : j;
+                } else {
+                    i++;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return end of the reference starting with the {@code $} at {@code start}, or -1 if there is none.
+         */
+        private static int referenceEnd(String s, int start) {
+            int i = start + 1;
+            if (i >= s.length()) {
+                return -1;
+            }
+            char c = s.charAt(i);
+            if (c == '$') {
+                return i + 1;
+            }
+            if (c == '{') {
+                int j = i + 1;
+                while (j < s.length() && isNameChar(s.charAt(j), true)) {
+                    j++;
+                }
+                return j > i + 1 && j < s.length() && s.charAt(j) == '}' ? j + 1 : -1;
+            }
+            while (i < s.length() && isNameChar(s.charAt(i), false)) {
+                i++;
+            }
+            return i > start + 1 ? i : -1;
+        }
+
+        private static boolean isNameChar(char c, boolean braced) {
+            return (c >= 'A' && c <= 'Z')
+                    || (c >= 'a' && c <= 'z')
+                    || (c >= '0' && c <= '9')
+                    || c == '_'
+                    || (braced && c == '.');
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return whether the value, before expansion, spans several lines.
+         */
+        public boolean isMultiLine() {
+            return multiLine;
+        }
+
+        /**
+         * @return the value with the variables of {@code env} substituted.
+         */
+        public String expand(Map<String, String> env) {
+            return expand(Collections.emptyMap(), env);
+        }
+
+        /**
+         * @return the value with the slots filled from {@code slots}, then the variables of {@code env}
+         *      substituted.
+         */
+        public String expand(Map<String, String> slots, Map<String, String> env) {
+            if (references.length == 0) {
+                return segments[0];
+            }
+            if (raw != null && !canFill(slots)) {
+                return new Entry(name, Util.replaceMacro(raw, slots)).expand(env);
+            }
+            StringBuilder sb = new StringBuilder(value.length() + 16 * references.length);
+            for (int r = 0; r < references.length; r++) {
+                sb.append(segments[2 * r]);
+                String v = references[r] != null ? env.get(segments[2 * r + 1]) : slots.get(segments[2 * r + 1]);
+                sb.append(v != null ? v : references[r]);
+            }
+            return sb.append(segments[segments.length - 1]).toString();
+        }
+
+        /**
+         * @return whether the slots can be filled in place, that is no slot value would be expanded as a
+         *      variable reference itself.
+         */
+        private boolean canFill(Map<String, String> slots) {
+            if (dynamic) {
+                return false;
+            }
+            for (int r = 0; r < references.length; r++) {
+                if (references[r] == null) {
+                    String v = slots.get(segments[2 * r + 1]);
+                    if (v == null || v.indexOf('$') >= 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
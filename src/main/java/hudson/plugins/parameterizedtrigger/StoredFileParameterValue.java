@@ -0,0 +1,63 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FileParameterValue;
+import hudson.tasks.BuildWrapper;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * File parameter passed by {@link BinaryFileParameterFactory}, whose copy in the triggered build links to the
+ * content in {@link BinaryParameterStore} instead of duplicating it.
+ */
+public class StoredFileParameterValue extends FileParameterValue {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The file under the triggering build.
+     */
+    private final String source;
+
+    public StoredFileParameterValue(String name, File source, String originalFileName) {
+        super(name, source, originalFileName);
+        this.source = source.getPath();
+    }
+
+    @Override
+    public BuildWrapper createBuildWrapper(AbstractBuild<?, ?> build) {
+        return new BuildWrapper() {
+            @Override
+            public Environment setUp(AbstractBuild build, Launcher launcher, BuildListener listener)
+                    throws IOException, InterruptedException {
+                String location = getLocation();
+                if (Util.fixEmpty(location) != null && Util.fixEmpty(getOriginalFileName()) != null) {
+                    FilePath workspace = build.getWorkspace();
+                    if (workspace == null) {
+                        throw new IOException("Cannot copy " + location + ", the build has no workspace");
+                    }
+                    // as FileParameterValue does, the location must not escape either copy's directory
+                    FilePath fileParameters = new FilePath(new File(build.getRootDir(), "fileParameters"));
+                    if (!workspace.isDescendant(location) || !fileParameters.isDescendant(location)) {
+                        listener.error("Rejecting file path escaping base directory with relative path: " + location);
+                        return null;
+                    }
+                    listener.getLogger().println("Copying file to " + location);
+                    FilePath f = workspace.child(location);
+                    f.getParent().mkdirs();
+                    if (f.exists() && !f.isDirectory()) {
+                        f.delete();
+                    }
+                    f.copyFrom(new FilePath(new File(source)));
+                    // where FileParameterValue keeps its copy
+                    BinaryParameterStore.link(
+                            new File(source), new File(build.getRootDir(), "fileParameters/" + location));
+                }
+                return new Environment() {};
+            }
+        };
+    }
+}
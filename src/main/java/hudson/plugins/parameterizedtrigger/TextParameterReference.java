@@ -0,0 +1,186 @@
+package hudson.plugins.parameterizedtrigger;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.EnvVars;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.Job;
+import hudson.model.ParameterValue;
+import hudson.model.Run;
+import hudson.model.TextParameterValue;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.VariableResolver;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * A text parameter whose value is stored once under the triggering build, and read from there when the
+ * triggered build needs it, instead of being copied into every triggered build.
+ *
+ * <p>
+ * Values are stored by the SHA-256 of their content, so a value passed to many builds, or by many triggers of the
+ * same build, is written once. Only values longer than {@link #THRESHOLD} characters are passed by reference, and
+ * none by default. The value cannot be resolved any longer once the triggering build is deleted.
+ */
+public class TextParameterReference extends ParameterValue {
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = Logger.getLogger(TextParameterReference.class.getName());
+
+    /**
+     * Text values longer than this many characters are passed by reference, 0 to always copy them.
+     *
+     * <p>
+     * Set with the {@code hudson.plugins.parameterizedtrigger.TextParameterReference.threshold} system property, or
+     * from the script console, where it applies to the next triggers. It is 0 by default because a triggered build
+     * loses the values passed by reference once its triggering build is deleted, so keeping the triggering builds
+     * at least as long as the triggered ones is up to the administrator enabling it.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tunable from the script console")
+    public static int THRESHOLD = Integer.getInteger(TextParameterReference.class.getName() + ".threshold", 0);
+
+    private static final String STORE = "parameterized-trigger-text";
+
+    private final String job;
+    private final int number;
+    private final String digest;
+
+    private transient SoftReference<String> cache;
+
+    TextParameterReference(String name, String job, int number, String digest) {
+        super(name);
+        this.job = job;
+        this.number = number;
+        this.digest = digest;
+    }
+
+    /**
+     * @return {@code value}, or a reference to its content stored under {@code upstream} if it is large enough.
+     */
+    static ParameterValue of(Run<?, ?> upstream, TextParameterValue value) throws IOException {
+        String text = (String) value.getValue();
+        if (THRESHOLD <= 0 || text == null || text.length() <= THRESHOLD) {
+            return value;
+        }
+        byte[] content = text.getBytes(StandardCharsets.UTF_8);
+        String digest = Util.toHexString(ParameterizedTriggerUtils.newSha256().digest(content));
+        Path file = getFile(upstream, digest);
+        if (!Files.exists(file)) {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), digest, ".tmp");
+            try {
+                Files.write(tmp, content);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        TextParameterReference ref = new TextParameterReference(
+                value.getName(), upstream.getParent().getFullName(), upstream.getNumber(), digest);
+        ref.setDescription(value.getDescription());
+        ref.cache = new SoftReference<>(text);
+        return ref;
+    }
+
+    private static Path getFile(Run<?, ?> upstream, String digest) {
+        return new File(new File(upstream.getRootDir(), STORE), digest + ".txt").toPath();
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * @return the text, or null if the triggering build or its copy of the text no longer exists.
+     */
+    @CheckForNull
+    @Override
+    public String getValue() {
+        SoftReference<String> c = cache;
+        String text = c != null ? c.get() : null;
+        if (text != null) {
+            return text;
+        }
+        Run<?, ?> upstream;
+        // the triggering build was allowed to pass the value, whoever the triggered build runs as
+        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+            Job<?, ?> j = Jenkins.get().getItemByFullName(job, Job.class);
+            upstream = j != null ? j.getBuildByNumber(number) : null;
+        }
+        if (upstream == null) {
+            LOGGER.log(Level.WARNING, "Cannot resolve parameter " + getName() + ", " + job + " #" + number
+                    + " no longer exists");
+            return null;
+        }
+        try {
+            text = Files.readString(getFile(upstream, digest), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot resolve parameter " + getName() + " from " + upstream, e);
+            return null;
+        }
+        cache = new SoftReference<>(text);
+        return text;
+    }
+
+    @Override
+    public void buildEnvironment(Run<?, ?> build, EnvVars env) {
+        String text = getValue();
+        if (text != null) {
+            env.put(name, text);
+        }
+    }
+
+    @Override
+    public VariableResolver<String> createVariableResolver(AbstractBuild<?, ?> build) {
+        return n -> name.equals(n) ? getValue() : null;
+    }
+
+    @Override
+    public String getShortDescription() {
+        return name + "=<text stored with " + job + " #" + number + ">";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!super.equals(o) || getClass() != o.getClass()) {
+            return false;
+        }
+        // same content, wherever it is stored
+        return digest.equals(((TextParameterReference) o).digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), digest);
+    }
+
+    @Override
+    public String toString() {
+        return "(TextParameterReference) " + getName() + "=" + job + "#" + number + "/" + digest;
+    }
+}
@@ -241,7 +241,7 @@ public class TriggerBuilder extends Builder implements DependencyDeclarer {
         if (!canDeclare(owner)) return;
 
         for (BuildTriggerConfig config : configs) {
-            List<AbstractProject> projectList = config.getProjectList(owner.getParent(), null);
+            List<AbstractProject> projectList = config.getDependencyGraphProjectList(owner.getParent());
             for (AbstractProject project : projectList) {
                 graph.addDependency(new TriggerBuilderDependency(owner, project, config));
             }
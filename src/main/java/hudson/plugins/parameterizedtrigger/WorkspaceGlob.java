@@ -0,0 +1,327 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DirScanner;
+import hudson.util.FileVisitor;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Ant pattern matching of workspace files that only walks the part of the tree a pattern can match.
+ *
+ * <p>
+ * The literal leading directories of a pattern give the directory to start from, and unless the pattern
+ * contains {@code **} its remaining segments bound the depth of the walk. So {@code out/triggers/*.properties}
+ * lists {@code out/triggers} only, instead of scanning the whole workspace.
+ * Default excludes apply as they do for {@link hudson.FilePath#list(String)}.
+ */
+@Restricted(NoExternalUse.class)
+final class WorkspaceGlob {
+
+    private static final String[] DEFAULT_EXCLUDES = toNative(DirectoryScanner.getDefaultExcludes());
+
+    private WorkspaceGlob() {}
+
+    /**
+     * @param baseDir the directory patterns are relative to.
+     * @param includes comma separated Ant patterns.
+     * @return sorted relative paths of the matching files, with {@code /} as separator.
+     * @throws IOException if {@code baseDir} does not exist or a pattern is invalid.
+     */
+    static List<String> glob(File baseDir, String includes) throws IOException {
+        if (!baseDir.isDirectory()) {
+            throw new IOException("basedir " + baseDir + " does not exist.");
+        }
+        Set<String> matches = new TreeSet<>();
+        StringTokenizer tokens = new StringTokenizer(includes, ",");
+        while (tokens.hasMoreTokens()) {
+            String pattern = tokens.nextToken().trim().replace('\\', '/');
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            if (pattern.endsWith("/")) {
+                // same as Ant, a trailing separator matches everything below
+                pattern += "**";
+            }
+            if (mayLeaveBaseDir(pattern)) {
+                // not worth pruning
+                matches.addAll(antGlob(baseDir, pattern));
+            } else {
+                walk(baseDir.toPath(), pattern, matches);
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * @param pattern Ant pattern with {@code /} as separator.
+     */
+    static boolean mayLeaveBaseDir(String pattern) {
+        return pattern.startsWith("/") || pattern.contains(":") || Arrays.asList(pattern.split("/")).contains("..");
+    }
+
+    /**
+     * @param pattern Ant pattern with {@code /} as separator.
+     * @return the number of leading segments of {@code pattern} that name the directory to start from.
+     */
+    static int literalPrefix(String pattern) {
+        String[] segments = pattern.split("/");
+        int literal = 0;
+        // the last segment names files, so it never is part of the directory to start from
+        while (literal < segments.length - 1 && !hasWildcard(segments[literal])) {
+            literal++;
+        }
+        return literal;
+    }
+
+    /**
+     * @param pattern Ant pattern with {@code /} as separator.
+     * @return how deep below its {@link #literalPrefix} {@code pattern} can match.
+     */
+    static int maxDepth(String pattern) {
+        String[] segments = pattern.split("/");
+        return Arrays.asList(segments).contains("**") ? Integer.MAX_VALUE : segments.length - literalPrefix(pattern);
+    }
+
+    private static void walk(Path base, String pattern, Set<String> matches) throws IOException {
+        String[] segments = pattern.split("/");
+        int literal = literalPrefix(pattern);
+        Path start = base;
+        for (int i = 0; i < literal; i++) {
+            start = start.resolve(segments[i]);
+        }
+        if (!Files.isDirectory(start)) {
+            return;
+        }
+        int maxDepth = maxDepth(pattern);
+
+        final String nativePattern = pattern.replace('/', File.separatorChar);
+        final Path walkStart = start;
+        Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(walkStart) && isExcludedDirectory(base.relativize(dir).toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                // directories at the maximum depth are reported here too
+                if (attrs.isRegularFile()) {
+                    String path = base.relativize(file).toString();
+                    if (SelectorUtils.matchPath(nativePattern, path) && !isExcluded(path)) {
+                        matches.add(path.replace(File.separatorChar, '/'));
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // unreadable entries and symlink loops are skipped, as DirectoryScanner does
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static List<String> antGlob(File baseDir, String pattern) throws IOException {
+        try {
+            String[] files = Util.createFileSet(baseDir, pattern)
+                    .getDirectoryScanner(new Project())
+                    .getIncludedFiles();
+            List<String> r = new ArrayList<>(files.length);
+            for (String f : files) {
+                r.add(f.replace(File.separatorChar, '/'));
+            }
+            return r;
+        } catch (BuildException x) {
+            throw new IOException(x.getMessage(), x);
+        }
+    }
+
+    private static boolean hasWildcard(String segment) {
+        return segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0;
+    }
+
+    private static boolean isExcluded(String path) {
+        for (String exclude : DEFAULT_EXCLUDES) {
+            if (SelectorUtils.matchPath(exclude, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** A directory whose whole content is excluded, such as {@code .git}. */
+    private static boolean isExcludedDirectory(String path) {
+        String suffix = File.separator + "**";
+        for (String exclude : DEFAULT_EXCLUDES) {
+            if (exclude.endsWith(suffix)
+                    && SelectorUtils.matchPath(exclude.substring(0, exclude.length() - suffix.length()), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] toNative(String[] patterns) {
+        String[] r = new String[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            r[i] = patterns[i].replace('/', File.separatorChar).replace('\\', File.separatorChar);
+        }
+        return r;
+    }
+
+    /**
+     * Globs a workspace on the agent, timing the scan.
+     */
+    static final class ListFiles extends MasterToSlaveFileCallable<Listing> {
+        private static final long serialVersionUID = 1L;
+
+        private final String includes;
+        private final boolean digest;
+        private final HashSet<String> known;
+        private final long maxInlineBytes;
+
+        /**
+         * @param includes comma separated Ant patterns.
+         * @param digest whether to compute the SHA-256 of every matching file as well.
+         */
+        ListFiles(String includes, boolean digest) {
+            this(includes, digest, Collections.emptySet(), 0);
+        }
+
+        /**
+         * Also returns the content of the matching files whose digest is not in {@code known}, as long as it fits in
+         * {@code maxInlineBytes}, so that the caller does not have to read them again.
+         *
+         * @param includes comma separated Ant patterns.
+         * @param known digests of content the caller has already.
+         * @param maxInlineBytes how much content to return at most.
+         */
+        ListFiles(String includes, Set<String> known, long maxInlineBytes) {
+            this(includes, true, known, maxInlineBytes);
+        }
+
+        private ListFiles(String includes, boolean digest, Set<String> known, long maxInlineBytes) {
+            this.includes = includes;
+            this.digest = digest;
+            this.known = new HashSet<>(known);
+            this.maxInlineBytes = maxInlineBytes;
+        }
+
+        @Override
+        public Listing invoke(File dir, VirtualChannel channel) throws IOException {
+            long start = System.nanoTime();
+            List<String> paths = glob(dir, includes);
+            long scanMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            List<String> digests = null;
+            List<byte[]> contents = null;
+            if (digest) {
+                digests = new ArrayList<>(paths.size());
+                contents = new ArrayList<>(paths.size());
+                long inline = 0;
+                for (String path : paths) {
+                    File f = new File(dir, path);
+                    long length = f.length();
+                    if (maxInlineBytes > 0 && inline + length <= maxInlineBytes) {
+                        byte[] content = Files.readAllBytes(f.toPath());
+                        String d = ParameterizedTriggerUtils.sha256(content);
+                        digests.add(d);
+                        if (known.contains(d)) {
+                            contents.add(null);
+                        } else {
+                            contents.add(content);
+                            inline += content.length;
+                        }
+                    } else {
+                        try (InputStream in = Files.newInputStream(f.toPath())) {
+                            digests.add(ParameterizedTriggerUtils.sha256(in));
+                        }
+                        contents.add(null);
+                    }
+                }
+            }
+            return new Listing(paths, digests, contents, scanMillis);
+        }
+    }
+
+    static final class Listing implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final List<String> paths;
+        /** SHA-256 of each of {@link #paths}, if requested. */
+        final List<String> digests;
+
+        /** Content of each of {@link #paths} if requested and returned, null for the others. */
+        final List<byte[]> contents;
+
+        final long scanMillis;
+
+        Listing(List<String> paths, List<String> digests, long scanMillis) {
+            this(paths, digests, null, scanMillis);
+        }
+
+        Listing(List<String> paths, List<String> digests, List<byte[]> contents, long scanMillis) {
+            this.paths = paths;
+            this.digests = digests;
+            this.contents = contents;
+            this.scanMillis = scanMillis;
+        }
+
+        /**
+         * @return the content of the {@code i}th file, or null if it was not returned.
+         */
+        byte[] getContent(int i) {
+            return contents != null ? contents.get(i) : null;
+        }
+    }
+
+    /**
+     * {@link DirScanner} visiting paths already found by {@link ListFiles}, so copying does not scan again.
+     */
+    static final class Paths extends DirScanner {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> paths;
+
+        Paths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        public void scan(File dir, FileVisitor visitor) throws IOException {
+            for (String path : paths) {
+                visitor.visit(new File(dir, path), path);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.XmlFile;
+import hudson.model.AbstractBuild;
+import hudson.model.Result;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The nodes each job last built successfully on, most recent first, for {@link WorkspaceLocalityParameters}.
+ *
+ * <p>
+ * Only jobs triggered with {@link WorkspaceLocalityParameters} are recorded, from their first such build on. The
+ * index is bounded by number of jobs, keeping the most recently updated ones, and persisted in {@code JENKINS_HOME}
+ * a few seconds after it changes. Lookups, made by the queue, take no lock.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public final class WorkspaceLocalityIndex {
+    private static final Logger LOGGER = Logger.getLogger(WorkspaceLocalityIndex.class.getName());
+
+    private static final int MAX_JOBS = Integer.getInteger(WorkspaceLocalityIndex.class.getName() + ".maxJobs", 10000);
+
+    private static final int NODES_PER_JOB =
+            Integer.getInteger(WorkspaceLocalityIndex.class.getName() + ".nodesPerJob", 3);
+
+    private final XmlFile file;
+    private final Map<String, List<String>> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * Keys of {@link #nodes}, least recently updated first, guarded by {@code this}.
+     */
+    private final LinkedHashSet<String> order = new LinkedHashSet<>();
+
+    private boolean saveScheduled;
+
+    public WorkspaceLocalityIndex() {
+        File file = new File(Jenkins.get().getRootDir(), WorkspaceLocalityIndex.class.getName() + ".xml");
+        this.file = new XmlFile(Jenkins.XSTREAM2, file);
+        load();
+    }
+
+    public static WorkspaceLocalityIndex get() {
+        return ExtensionList.lookupSingleton(WorkspaceLocalityIndex.class);
+    }
+
+    /**
+     * @return names of the nodes {@code job} last built successfully on, most recent first, empty for the built-in
+     *      node.
+     */
+    List<String> getNodes(String job) {
+        List<String> r = nodes.get(job);
+        return r != null ? r : Collections.emptyList();
+    }
+
+    boolean contains(String job) {
+        return nodes.containsKey(job);
+    }
+
+    synchronized void record(String job, String node) {
+        List<String> previous = nodes.get(job);
+        if (previous != null && !previous.isEmpty() && previous.get(0).equals(node)) {
+            return;
+        }
+        List<String> r = new ArrayList<>(NODES_PER_JOB);
+        r.add(node);
+        if (previous != null) {
+            for (String n : previous) {
+                if (r.size() < NODES_PER_JOB && !n.equals(node)) {
+                    r.add(n);
+                }
+            }
+        }
+        nodes.put(job, Collections.unmodifiableList(r));
+        order.remove(job);
+        order.add(job);
+        trim();
+        scheduleSave();
+    }
+
+    /**
+     * Removes the least recently updated jobs beyond {@link #MAX_JOBS}.
+     */
+    private void trim() {
+        Iterator<String> it = order.iterator();
+        while (order.size() > MAX_JOBS && it.hasNext()) {
+            nodes.remove(it.next());
+            it.remove();
+        }
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    private void scheduleSave() {
+        if (!saveScheduled) {
+            saveScheduled = true;
+            Timer.get().schedule(this::save, 5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void save() {
+        Map<String, List<String>> snapshot;
+        synchronized (this) {
+            saveScheduled = false;
+            snapshot = new LinkedHashMap<>();
+            for (String job : order) {
+                snapshot.put(job, nodes.get(job));
+            }
+        }
+        try {
+            file.write(snapshot);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + file, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            for (Map.Entry<String, List<String>> e : ((Map<String, List<String>>) file.read()).entrySet()) {
+                nodes.put(e.getKey(), Collections.unmodifiableList(e.getValue()));
+                order.add(e.getKey());
+            }
+            // saved with a larger limit
+            trim();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to load " + file + ", starting with an empty index", e);
+            nodes.clear();
+            order.clear();
+        }
+    }
+
+    /**
+     * Records the successful builds triggered with {@link WorkspaceLocalityParameters}, and later ones of the same
+     * jobs however they were started, as they warm the workspace all the same.
+     */
+    @Extension
+    public static class RecorderImpl extends RunListener<AbstractBuild<?, ?>> {
+        @Override
+        public void onCompleted(AbstractBuild<?, ?> build, TaskListener listener) {
+            String node = build.getBuiltOnStr();
+            if (build.getResult() != Result.SUCCESS || node == null) {
+                return;
+            }
+            WorkspaceLocalityIndex index = get();
+            String job = build.getParent().getFullName();
+            if (build.getAction(WorkspaceLocalityParameters.WorkspaceLocalityAction.class) != null
+                    || index.contains(job)) {
+                index.record(job, node);
+            }
+        }
+    }
+}
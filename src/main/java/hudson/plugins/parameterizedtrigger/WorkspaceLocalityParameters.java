@@ -0,0 +1,75 @@
+package hudson.plugins.parameterizedtrigger;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.Computer;
+import hudson.model.Descriptor;
+import hudson.model.InvisibleAction;
+import hudson.model.Item;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.model.labels.LabelAssignmentAction;
+import hudson.model.queue.SubTask;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Prefers the nodes the triggered project last built successfully on, where its workspace is likely still warm.
+ *
+ * <p>
+ * The nodes come from {@link WorkspaceLocalityIndex} and are looked up each time the queue assigns the build, so
+ * when none of them has an idle executor the build is scheduled as usual.
+ */
+public class WorkspaceLocalityParameters extends AbstractBuildParameters {
+
+    @DataBoundConstructor
+    public WorkspaceLocalityParameters() {}
+
+    @Override
+    public Action getAction(AbstractBuild<?, ?> build, TaskListener listener) {
+        // the triggered project is only known to the queue
+        return new WorkspaceLocalityAction();
+    }
+
+    public static class WorkspaceLocalityAction extends InvisibleAction implements LabelAssignmentAction {
+        /**
+         * @return the nodes {@code task} last built successfully on that have an idle executor and still match its
+         *      own label, or null to schedule it as usual.
+         */
+        @Override
+        public Label getAssignedLabel(SubTask task) {
+            if (!(task instanceof Item)) {
+                return null;
+            }
+            Jenkins j = Jenkins.get();
+            Label own = task.getAssignedLabel();
+            StringBuilder expression = new StringBuilder();
+            for (String name : WorkspaceLocalityIndex.get().getNodes(((Item) task).getFullName())) {
+                Node node = name.isEmpty() ? j : j.getNode(name);
+                if (node == null
+                        || (own != null ? !own.contains(node) : node.getMode() == Node.Mode.EXCLUSIVE)) {
+                    continue;
+                }
+                Computer c = node.toComputer();
+                if (c == null || !c.isOnline() || !c.isAcceptingTasks() || c.countIdle() == 0) {
+                    continue;
+                }
+                if (expression.length() > 0) {
+                    expression.append("||");
+                }
+                expression.append(node.getSelfLabel().getExpression());
+            }
+            return expression.length() > 0 ? j.getLabel(expression.toString()) : null;
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<AbstractBuildParameters> {
+        @Override
+        public String getDisplayName() {
+            return "Prefer nodes with a workspace of the triggered project";
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package hudson.plugins.parameterizedtrigger.matrix;
+
+import hudson.Util;
+import hudson.matrix.AxisList;
+import hudson.matrix.Combination;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Combination filter prepared once and evaluated against many {@link Combination}s.
+ *
+ * <p>
+ * Filters made only of axis comparisons such as {@code OS == 'linux' && (JDK == "17" || JDK != "21")}
+ * are evaluated in plain Java. Anything else goes through {@link Combination#evalGroovyExpression(AxisList, String)}
+ * on every call, as such an expression may depend on more than the combination, and must pass script security each
+ * time it runs.
+ */
+@Restricted(NoExternalUse.class)
+public final class CompiledCombinationFilter {
+
+    private static final int MAX_FILTERS =
+            Integer.getInteger(CompiledCombinationFilter.class.getName() + ".maxFilters", 256);
+
+    private static final Map<String, CompiledCombinationFilter> FILTERS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledCombinationFilter> eldest) {
+            return size() > MAX_FILTERS;
+        }
+    };
+
+    private final String expression;
+
+    /** Null when the expression needs Groovy. */
+    private final Predicate<Combination> predicate;
+
+    /** Axis names {@link #predicate} reads. */
+    private final Set<String> names;
+
+    private CompiledCombinationFilter(String expression) {
+        this.expression = expression;
+        Parser parser = new Parser(expression);
+        this.predicate = parser.parse();
+        this.names = parser.names;
+    }
+
+    /**
+     * @param expression combination filter, blank for all combinations.
+     */
+    public static CompiledCombinationFilter compile(String expression) {
+        String e = Util.fixEmptyAndTrim(expression);
+        if (e == null) {
+            e = "";
+        }
+        synchronized (FILTERS) {
+            CompiledCombinationFilter filter = FILTERS.get(e);
+            if (filter == null) {
+                filter = new CompiledCombinationFilter(e);
+                if (MAX_FILTERS > 0) {
+                    FILTERS.put(e, filter);
+                }
+            }
+            return filter;
+        }
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return true if {@code expression} is evaluated without Groovy.
+     */
+    public boolean isPlainJava() {
+        return predicate != null;
+    }
+
+    public boolean matches(AxisList axes, Combination c) {
+        if (predicate != null && c.keySet().containsAll(names)) {
+            return predicate.test(c);
+        }
+        return c.evalGroovyExpression(axes, expression);
+    }
+
+    /**
+     * Recursive descent parser for the subset of Groovy the plain Java path handles:
+     *
+     * <pre>
+     * or         := and ('||' and)*
+     * and        := unary ('&amp;&amp;' unary)*
+     * unary      := '!' '(' or ')' | '(' or ')' | comparison
+     * comparison := operand ('==' | '!=') operand
+     * operand    := identifier | 'string' | "string"
+     * </pre>
+     *
+     * String literals must not contain {@code $} or {@code \}, which have a meaning in Groovy.
+     */
+    private static final class Parser {
+        private final List<String> tokens = new ArrayList<>();
+        private final Set<String> names = new HashSet<>();
+        private int pos;
+
+        Parser(String expression) {
+            if (!tokenize(expression)) {
+                tokens.clear();
+                tokens.add("?");
+            }
+        }
+
+        /**
+         * @return null if the expression is not in the supported subset.
+         */
+        Predicate<Combination> parse() {
+            if (tokens.isEmpty()) {
+                return c -> true;
+            }
+            Predicate<Combination> p = or();
+            return p != null && pos == tokens.size() ? p : null;
+        }
+
+        private boolean tokenize(String s) {
+            int i = 0;
+            while (i < s.length()) {
+                char ch = s.charAt(i);
+                if (Character.isWhitespace(ch)) {
+                    i++;
+                } else if (Character.isJavaIdentifierStart(ch) && ch != '$') {
+                    int start = i;
+                    while (i < s.length() && Character.isJavaIdentifierPart(s.charAt(i)) && s.charAt(i) != '$') {
+                        i++;
+                    }
+                    tokens.add(s.substring(start, i));
+                } else if (ch == '\'' || ch == '"') {
+                    int end = s.indexOf(ch, i + 1);
+                    if (end < 0) {
+                        return false;
+                    }
+                    String literal = s.substring(i, end + 1);
+                    if (literal.indexOf('$') >= 0 || literal.indexOf('\\') >= 0 || literal.indexOf('\n') >= 0) {
+                        return false;
+                    }
+                    tokens.add(literal);
+                    i = end + 1;
+                } else if (s.startsWith("==", i) || s.startsWith("!=", i)) {
+                    if (s.startsWith("==~", i) || s.startsWith("===", i) || s.startsWith("!==", i)) {
+                        return false;
+                    }
+                    tokens.add(s.substring(i, i + 2));
+                    i += 2;
+                } else if (s.startsWith("&&", i) || s.startsWith("||", i)) {
+                    tokens.add(s.substring(i, i + 2));
+                    i += 2;
+                } else if (ch == '!' || ch == '(' || ch == ')') {
+                    tokens.add(String.valueOf(ch));
+                    i++;
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String peek() {
+            return pos < tokens.size() ? tokens.get(pos) : null;
+        }
+
+        private boolean accept(String token) {
+            if (token.equals(peek())) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private Predicate<Combination> or() {
+            Predicate<Combination> left = and();
+            while (left != null && accept("||")) {
+                Predicate<Combination> right = and();
+                left = right == null ? null : left.or(right);
+            }
+            return left;
+        }
+
+        private Predicate<Combination> and() {
+            Predicate<Combination> left = unary();
+            while (left != null && accept("&&")) {
+                Predicate<Combination> right = unary();
+                left = right == null ? null : left.and(right);
+            }
+            return left;
+        }
+
+        private Predicate<Combination> unary() {
+            if (accept("!")) {
+                // '!a == b' is '(!a) == b' in Groovy, only negate parenthesized expressions
+                Predicate<Combination> p = "(".equals(peek()) ? unary() : null;
+                return p == null ? null : p.negate();
+            }
+            if (accept("(")) {
+                Predicate<Combination> p = or();
+                return p != null && accept(")") ? p : null;
+            }
+            return comparison();
+        }
+
+        private Predicate<Combination> comparison() {
+            Operand left = operand();
+            if (left == null) {
+                return null;
+            }
+            boolean equal;
+            if (accept("==")) {
+                equal = true;
+            } else if (accept("!=")) {
+                equal = false;
+            } else {
+                return null;
+            }
+            Operand right = operand();
+            if (right == null) {
+                return null;
+            }
+            return c -> left.get(c).equals(right.get(c)) == equal;
+        }
+
+        private Operand operand() {
+            String token = peek();
+            if (token == null) {
+                return null;
+            }
+            char ch = token.charAt(0);
+            if (ch == '\'' || ch == '"') {
+                pos++;
+                String literal = token.substring(1, token.length() - 1);
+                return c -> literal;
+            }
+            if (Character.isJavaIdentifierStart(ch) && !isReserved(token)) {
+                pos++;
+                names.add(token);
+                return c -> c.get(token);
+            }
+            return null;
+        }
+
+        private static boolean isReserved(String name) {
+            switch (name) {
+                case "true":
+                case "false":
+                case "null":
+                case "in":
+                case "instanceof":
+                case "index":
+                case "uniqueId":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private interface Operand {
+        String get(Combination c);
+    }
+}
@@ -16,7 +16,10 @@ public class MatrixBuildListenerImpl extends MatrixBuildListener {
         MatrixSubsetAction a = b.getAction(MatrixSubsetAction.class);
         if (a == null) return true;
 
+        // an explicit list is a plain lookup, check it before running the filter
+        if (!a.isListed(c.getCombination())) return false;
+
         // run the filter and restrict the subset to run
-        return c.getCombination().evalGroovyExpression(b.getParent().getAxes(), a.getFilter());
+        return CompiledCombinationFilter.compile(a.getFilter()).matches(b.getParent().getAxes(), c.getCombination());
     }
 }
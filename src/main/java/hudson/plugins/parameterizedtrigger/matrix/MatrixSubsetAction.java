@@ -3,6 +3,12 @@ package hudson.plugins.parameterizedtrigger.matrix;
 import hudson.matrix.AxisList;
 import hudson.matrix.Combination;
 import hudson.model.InvisibleAction;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Restricts the execution of matrix to a subset at runtime.
@@ -15,11 +21,156 @@ public class MatrixSubsetAction extends InvisibleAction {
      */
     private final String filter;
 
+    /**
+     * Combinations to run, one per line as written by {@link #encode(Combination)}, or null to run all of them.
+     * Kept as a single string so that thousands of combinations stay cheap to persist.
+     */
+    private final String combinations;
+
+    private transient volatile Set<Combination> combinationSet;
+
     public MatrixSubsetAction(String filter) {
+        this(filter, null);
+    }
+
+    /**
+     * @param combinations combinations to run, null to run all the combinations {@code filter} accepts.
+     */
+    public MatrixSubsetAction(String filter, Set<Combination> combinations) {
         this.filter = filter;
+        if (combinations == null) {
+            this.combinations = null;
+        } else {
+            Set<String> lines = new TreeSet<>();
+            for (Combination c : combinations) {
+                lines.add(encode(c));
+            }
+            this.combinations = String.join("\n", lines);
+            this.combinationSet = Collections.unmodifiableSet(new HashSet<>(combinations));
+        }
     }
 
     public String getFilter() {
         return filter;
     }
+
+    /**
+     * @return combinations to run, or null when only {@link #getFilter()} restricts the subset.
+     */
+    public Set<Combination> getCombinations() {
+        if (combinations == null) {
+            return null;
+        }
+        Set<Combination> s = combinationSet;
+        if (s == null) {
+            s = Collections.unmodifiableSet(decode(combinations));
+            combinationSet = s;
+        }
+        return s;
+    }
+
+    /**
+     * @return true if {@code c} is in the list of combinations to run, or if there is no such list.
+     */
+    public boolean isListed(Combination c) {
+        Set<Combination> s = getCombinations();
+        return s == null || s.contains(c);
+    }
+
+    /**
+     * Writes {@code c} as {@code axis=value,axis=value}, with a backslash before the separators and backslashes in
+     * names and values, and line breaks escaped, so that any value reads back as it was.
+     */
+    private static String encode(Combination c) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : c.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            escape(e.getKey(), sb);
+            sb.append('=');
+            escape(e.getValue(), sb);
+        }
+        return sb.toString();
+    }
+
+    private static void escape(String s, StringBuilder sb) {
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '\\' || ch == ',' || ch == '=') {
+                sb.append('\\').append(ch);
+            } else if (ch == '\n') {
+                sb.append("\\n");
+            } else if (ch == '\r') {
+                sb.append("\\r");
+            } else {
+                sb.append(ch);
+            }
+        }
+    }
+
+    /**
+     * Reads the lines written by {@link #encode(Combination)}.
+     */
+    private static Set<Combination> decode(String text) {
+        Set<Combination> result = new HashSet<>();
+        Map<String, String> values = new TreeMap<>();
+        StringBuilder token = new StringBuilder();
+        String name = null;
+        for (int i = 0; i <= text.length(); i++) {
+            char ch = i < text.length() ? text.charAt(i) : '\n';
+            if (ch == '\\' && i + 1 < text.length()) {
+                char escaped = text.charAt(++i);
+                token.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else if (ch == '=' && name == null) {
+                name = token.toString();
+                token.setLength(0);
+            } else if (ch == ',' || ch == '\n') {
+                if (name != null) {
+                    values.put(name, token.toString());
+                }
+                name = null;
+                token.setLength(0);
+                if (ch == '\n' && !values.isEmpty()) {
+                    result.add(new Combination(values));
+                    values = new TreeMap<>();
+                }
+            } else {
+                token.append(ch);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses combinations written as {@code axis=value,axis=value}, one per line or separated by {@code ;}.
+     * Blank lines and lines starting with {@code #} are ignored.
+     *
+     * @throws IllegalArgumentException if an entry is not a combination.
+     */
+    public static Set<Combination> parseCombinations(String text) {
+        Set<Combination> result = new HashSet<>();
+        for (String line : text.split("\\R")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            for (String entry : line.split(";")) {
+                entry = entry.trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                Map<String, String> values = new TreeMap<>();
+                for (String pair : entry.split(",")) {
+                    int eq = pair.indexOf('=');
+                    if (eq <= 0) {
+                        throw new IllegalArgumentException("Invalid combination: " + entry);
+                    }
+                    values.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+                }
+                result.add(new Combination(values));
+            }
+        }
+        return result;
+    }
 }
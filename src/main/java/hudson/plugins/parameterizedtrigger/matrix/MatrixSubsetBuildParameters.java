@@ -1,13 +1,20 @@
 package hudson.plugins.parameterizedtrigger.matrix;
 
+import hudson.AbortException;
+import hudson.EnvVars;
 import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.matrix.Combination;
 import hudson.matrix.MatrixConfiguration;
 import hudson.model.AbstractBuild;
 import hudson.model.Action;
 import hudson.model.Descriptor;
 import hudson.model.TaskListener;
 import hudson.plugins.parameterizedtrigger.AbstractBuildParameters;
+import hudson.plugins.parameterizedtrigger.Plugin;
 import java.io.IOException;
+import java.util.Set;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 /**
@@ -18,18 +25,70 @@ import org.kohsuke.stapler.DataBoundConstructor;
 public class MatrixSubsetBuildParameters extends AbstractBuildParameters {
     private final String filter;
 
+    /**
+     * Combinations to run, as parsed by {@link MatrixSubsetAction#parseCombinations(String)}.
+     */
+    private final String combinations;
+
+    /**
+     * Workspace file listing combinations to run, in the same format as {@link #combinations}.
+     */
+    private final String combinationsFile;
+
     @DataBoundConstructor
-    public MatrixSubsetBuildParameters(String filter) {
+    public MatrixSubsetBuildParameters(String filter, String combinations, String combinationsFile) {
         this.filter = filter;
+        this.combinations = Util.fixEmptyAndTrim(combinations);
+        this.combinationsFile = Util.fixEmptyAndTrim(combinationsFile);
+    }
+
+    public MatrixSubsetBuildParameters(String filter) {
+        this(filter, null, null);
     }
 
     public String getFilter() {
         return filter;
     }
 
+    public String getCombinations() {
+        return combinations;
+    }
+
+    public String getCombinationsFile() {
+        return combinationsFile;
+    }
+
     @Override
     public Action getAction(AbstractBuild<?, ?> build, TaskListener listener) throws IOException, InterruptedException {
-        return new MatrixSubsetAction(getEnvironment(build, listener).expand(filter));
+        EnvVars env = getEnvironment(build, listener);
+        if (combinations == null && combinationsFile == null) {
+            return new MatrixSubsetAction(env.expand(filter));
+        }
+
+        StringBuilder list = new StringBuilder();
+        if (combinations != null) {
+            list.append(env.expand(combinations)).append('\n');
+        }
+        if (combinationsFile != null) {
+            FilePath workspace = build.getWorkspace();
+            if (workspace == null) {
+                throw new AbortException("Cannot read " + combinationsFile + ", the build has no workspace");
+            }
+            FilePath f = workspace.child(env.expand(combinationsFile));
+            if (!f.exists()) {
+                throw new AbortException("Combinations file " + f.getRemote() + " does not exist");
+            }
+            list.append(f.readToString());
+        }
+
+        Set<Combination> selected;
+        try {
+            selected = MatrixSubsetAction.parseCombinations(list.toString());
+        } catch (IllegalArgumentException e) {
+            throw new AbortException(e.getMessage());
+        }
+        listener.getLogger().println(Plugin.LOG_TAG + " Restricting matrix to " + selected.size() + " combinations");
+        return new MatrixSubsetAction(env.expand(filter), selected);
     }
 
     @Extension
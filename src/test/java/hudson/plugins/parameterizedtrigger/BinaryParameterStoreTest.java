@@ -0,0 +1,48 @@
+package hudson.plugins.parameterizedtrigger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hudson.FilePath;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryParameterStoreTest {
+
+    @TempDir
+    private File tmp;
+
+    private static WorkspaceGlob.Listing listing(String path, String digest) {
+        return new WorkspaceGlob.Listing(Collections.singletonList(path), Collections.singletonList(digest), 0);
+    }
+
+    @Test
+    void storedContentIsReused() throws Exception {
+        BinaryParameterStore store = new BinaryParameterStore(new File(tmp, "store"));
+        FilePath workspace = new FilePath(new File(tmp, "ws"));
+        workspace.child("a.bin").write("content", "UTF-8");
+        String digest = ParameterizedTriggerUtils.sha256("content".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(1, store.store(workspace, listing("a.bin", digest), new File(tmp, "build1")));
+        assertEquals(0, store.store(workspace, listing("a.bin", digest), new File(tmp, "build2")));
+        assertEquals("content", Files.readString(new File(tmp, "build2/a.bin").toPath()));
+    }
+
+    @Test
+    void knowingTheDigestIsNotEnoughToGetStoredContent() throws Exception {
+        BinaryParameterStore store = new BinaryParameterStore(new File(tmp, "store"));
+        FilePath workspace = new FilePath(new File(tmp, "ws"));
+        workspace.child("secret.bin").write("secret", "UTF-8");
+        String digest = ParameterizedTriggerUtils.sha256("secret".getBytes(StandardCharsets.UTF_8));
+        store.store(workspace, listing("secret.bin", digest), new File(tmp, "build1"));
+
+        FilePath other = new FilePath(new File(tmp, "other"));
+        other.child("a.bin").write("mine", "UTF-8");
+        // an agent reporting the digest of content it does not have
+        assertEquals(1, store.store(other, listing("a.bin", digest), new File(tmp, "build2")));
+        assertEquals("mine", Files.readString(new File(tmp, "build2/a.bin").toPath()));
+    }
+}
@@ -0,0 +1,91 @@
+package hudson.plugins.parameterizedtrigger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ParsedPropertiesCacheTest {
+
+    private static Map<String, String> properties(String value) {
+        return Collections.singletonMap("KEY", value);
+    }
+
+    @Test
+    void lookupsAreCounted() {
+        ParsedPropertiesCache cache = new ParsedPropertiesCache(10, 1024 * 1024);
+        assertNull(cache.lookup("a", "UTF-8"));
+        cache.put("a", "UTF-8", properties("1"));
+        assertEquals("1", cache.lookup("a", "UTF-8").get("KEY"));
+        // decoded with another charset, the same content is another entry
+        assertNull(cache.lookup("a", "ISO-8859-1"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        ParsedPropertiesCache cache = new ParsedPropertiesCache(2, 1024 * 1024);
+        cache.put("a", "UTF-8", properties("1"));
+        cache.put("b", "UTF-8", properties("2"));
+        assertNotNull(cache.lookup("a", "UTF-8"));
+        cache.put("c", "UTF-8", properties("3"));
+
+        assertEquals(2, cache.getEntryCount());
+        assertNotNull(cache.lookup("a", "UTF-8"));
+        assertNull(cache.lookup("b", "UTF-8"));
+        assertNotNull(cache.lookup("c", "UTF-8"));
+    }
+
+    @Test
+    void entriesAreEvictedBeyondTheMaximumSize() {
+        ParsedPropertiesCache unbounded = new ParsedPropertiesCache(10, 1024 * 1024);
+        unbounded.put("a", "UTF-8", properties("1"));
+        long size = unbounded.getSize();
+        // room for two entries of that size
+        ParsedPropertiesCache cache = new ParsedPropertiesCache(10, 2 * size + 1);
+        cache.put("a", "UTF-8", properties("1"));
+        cache.put("b", "UTF-8", properties("2"));
+        cache.put("c", "UTF-8", properties("3"));
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(2 * size, cache.getSize());
+        assertNull(cache.lookup("a", "UTF-8"));
+        assertNotNull(cache.lookup("b", "UTF-8"));
+        assertNotNull(cache.lookup("c", "UTF-8"));
+    }
+
+    @Test
+    void propertiesLargerThanTheCacheAreNotKept() {
+        ParsedPropertiesCache cache = new ParsedPropertiesCache(10, 200);
+        cache.put("a", "UTF-8", properties("1"));
+        Map<String, String> p = cache.put("b", "UTF-8", properties("x".repeat(100)));
+
+        assertEquals("x".repeat(100), p.get("KEY"));
+        assertThrows(UnsupportedOperationException.class, () -> p.put("KEY", "y"));
+        assertNull(cache.lookup("b", "UTF-8"));
+        assertNotNull(cache.lookup("a", "UTF-8"));
+    }
+
+    @Test
+    void knownDigestsAreThoseStillCached() {
+        ParsedPropertiesCache cache = new ParsedPropertiesCache(2, 1024 * 1024);
+        cache.put("a", "UTF-8", properties("1"));
+        cache.put("b", "UTF-8", properties("2"));
+        cache.setSeenDigests("job\nx.properties", Arrays.asList("a", "b"));
+
+        assertEquals(Set.of("a", "b"), cache.getKnownDigests("job\nx.properties", "UTF-8"));
+        assertEquals(Set.of(), cache.getKnownDigests("job\nx.properties", "ISO-8859-1"));
+        assertEquals(Set.of(), cache.getKnownDigests("other\nx.properties", "UTF-8"));
+
+        cache.put("c", "UTF-8", properties("3"));
+        // the agent must send what is no longer cached
+        assertEquals(Set.of("b"), cache.getKnownDigests("job\nx.properties", "UTF-8"));
+    }
+}
@@ -0,0 +1,115 @@
+package hudson.plugins.parameterizedtrigger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.FilePath;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WorkspaceGlobTest {
+
+    @TempDir
+    private File base;
+
+    @BeforeEach
+    void createFiles() throws IOException {
+        for (String path : Arrays.asList(
+                "x.properties",
+                "a/x.properties",
+                "a/x.properties~",
+                "a/b/x.properties",
+                "a/b/c/x.properties",
+                "a/b/c/y.txt",
+                "a/.git/config",
+                "d/x.properties",
+                ".git/x.properties",
+                "a:b.properties")) {
+            Path f = base.toPath().resolve(path);
+            Files.createDirectories(f.getParent());
+            Files.write(f, path.getBytes());
+        }
+    }
+
+    /**
+     * Same as {@link WorkspaceGlob#glob}, with {@link FilePath#list(String)}.
+     */
+    private List<String> list(String includes) throws Exception {
+        List<String> r = new ArrayList<>();
+        for (FilePath f : new FilePath(base).list(includes)) {
+            r.add(base.toPath()
+                    .relativize(new File(f.getRemote()).toPath())
+                    .toString()
+                    .replace(File.separatorChar, '/'));
+        }
+        Collections.sort(r);
+        return r;
+    }
+
+    @Test
+    void matchesLikeFilePathList() throws Exception {
+        for (String pattern : Arrays.asList(
+                "**",
+                "**/*.properties",
+                "*.properties",
+                "a/**/x.properties",
+                "a/*/x.properties",
+                "a/b/c/*",
+                "*/x.properties",
+                "a/",
+                "a/x.properties, d/*",
+                "missing/**")) {
+            assertEquals(list(pattern), WorkspaceGlob.glob(base, pattern), pattern);
+        }
+    }
+
+    @Test
+    void defaultExcludesApply() throws Exception {
+        List<String> all = WorkspaceGlob.glob(base, "**");
+        assertFalse(all.contains(".git/x.properties"));
+        assertFalse(all.contains("a/.git/config"));
+        assertFalse(all.contains("a/x.properties~"));
+        assertTrue(all.contains("a/b/c/y.txt"));
+    }
+
+    @Test
+    void walkStartsBelowTheLiteralDirectories() {
+        assertEquals(0, WorkspaceGlob.literalPrefix("x.properties"));
+        assertEquals(0, WorkspaceGlob.literalPrefix("**/x.properties"));
+        assertEquals(1, WorkspaceGlob.literalPrefix("a/*.properties"));
+        assertEquals(2, WorkspaceGlob.literalPrefix("a/b/x.properties"));
+        assertEquals(1, WorkspaceGlob.literalPrefix("a/*/c/x.properties"));
+    }
+
+    @Test
+    void walkIsBoundedUnlessThePatternHasDoubleStars() throws Exception {
+        assertEquals(1, WorkspaceGlob.maxDepth("a/*.properties"));
+        assertEquals(3, WorkspaceGlob.maxDepth("a/*/c/x.properties"));
+        assertEquals(Integer.MAX_VALUE, WorkspaceGlob.maxDepth("a/**/x.properties"));
+
+        assertEquals(Collections.singletonList("a/b/x.properties"), WorkspaceGlob.glob(base, "a/*/x.properties"));
+        assertEquals(
+                Arrays.asList("a/b/c/x.properties", "a/b/x.properties", "a/x.properties"),
+                WorkspaceGlob.glob(base, "a/**/x.properties"));
+    }
+
+    @Test
+    void patternsThatMayLeaveTheBaseDirectoryFallBackToAnt() throws Exception {
+        assertFalse(WorkspaceGlob.mayLeaveBaseDir("a/**/x.properties"));
+        for (String pattern :
+                Arrays.asList("../x.properties", "a/../x.properties", "a:b.properties", "/a/x.properties")) {
+            assertTrue(WorkspaceGlob.mayLeaveBaseDir(pattern), pattern);
+            assertEquals(list(pattern), WorkspaceGlob.glob(base, pattern), pattern);
+        }
+    }
+}
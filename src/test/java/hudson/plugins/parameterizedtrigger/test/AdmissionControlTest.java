@@ -0,0 +1,64 @@
+package hudson.plugins.parameterizedtrigger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.plugins.parameterizedtrigger.AdmissionControl;
+import hudson.plugins.parameterizedtrigger.BuildTrigger;
+import hudson.plugins.parameterizedtrigger.BuildTriggerConfig;
+import hudson.plugins.parameterizedtrigger.CurrentBuildParameters;
+import hudson.plugins.parameterizedtrigger.ResultCondition;
+import hudson.slaves.DumbSlave;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class AdmissionControlTest {
+
+    @Test
+    void testWaitsForExecutors(JenkinsRule r) throws Exception {
+        AdmissionControl.QUEUED_PER_IDLE_EXECUTOR = 1;
+        AdmissionControl.MIN_QUEUED_PER_LABEL = 1;
+        try {
+            DumbSlave slave = r.createOnlineSlave(Label.get("pool"));
+            slave.toComputer().disconnect(null).get();
+
+            FreeStyleProject downstream1 = r.createFreeStyleProject("downstream1");
+            downstream1.setAssignedLabel(Label.get("pool"));
+            FreeStyleProject downstream2 = r.createFreeStyleProject("downstream2");
+            downstream2.setAssignedLabel(Label.get("pool"));
+            FreeStyleProject upstream = r.createFreeStyleProject("upstream");
+            upstream.getPublishersList()
+                    .add(new BuildTrigger(new BuildTriggerConfig(
+                            "downstream1, downstream2", ResultCondition.SUCCESS, new CurrentBuildParameters())));
+            r.jenkins.rebuildDependencyGraph();
+
+            // without an idle executor in pool, one build is let in for the agent to be provisioned
+            r.buildAndAssertSuccess(upstream);
+            assertEquals(1, r.jenkins.getQueue().getItems().length);
+            assertEquals(1, AdmissionControl.get().getDepth());
+
+            slave.toComputer().connect(false).get();
+            long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+            while (downstream1.getLastBuild() == null
+                    || downstream2.getLastBuild() == null
+                    || AdmissionControl.get().getDepth() > 0) {
+                assertTrue(
+                        System.currentTimeMillis() < deadline,
+                        "still waiting: " + AdmissionControl.get().getDepth() + " builds");
+                Thread.sleep(100);
+            }
+            r.waitUntilNoActivity();
+            r.assertBuildStatusSuccess(downstream1.getLastBuild());
+            r.assertBuildStatusSuccess(downstream2.getLastBuild());
+            assertEquals(2, AdmissionControl.get().getReleased());
+        } finally {
+            AdmissionControl.QUEUED_PER_IDLE_EXECUTOR = 0;
+            AdmissionControl.MIN_QUEUED_PER_LABEL = 10;
+        }
+    }
+}
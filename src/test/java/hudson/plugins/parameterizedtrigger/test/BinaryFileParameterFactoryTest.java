@@ -0,0 +1,145 @@
+package hudson.plugins.parameterizedtrigger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FileParameterDefinition;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Result;
+import hudson.plugins.parameterizedtrigger.BinaryFileParameterFactory;
+import hudson.plugins.parameterizedtrigger.BlockableBuildTriggerConfig;
+import hudson.plugins.parameterizedtrigger.BlockingBehaviour;
+import hudson.plugins.parameterizedtrigger.FileBuildParameterFactory.NoFilesFoundEnum;
+import hudson.plugins.parameterizedtrigger.TriggerBuilder;
+import hudson.slaves.DumbSlave;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class BinaryFileParameterFactoryTest {
+
+    @Test
+    void identicalFilesAreStoredOnce(JenkinsRule r) throws Exception {
+        FreeStyleProject downstream = r.createFreeStyleProject("downstream");
+        downstream.addProperty(new ParametersDefinitionProperty(new FileParameterDefinition("FILE", "")));
+
+        FreeStyleProject upstream = r.createFreeStyleProject("upstream");
+        upstream.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                build.getWorkspace().child("a.bin").write("payload", "UTF-8");
+                return true;
+            }
+        });
+        upstream.getBuildersList()
+                .add(new TriggerBuilder(new BlockableBuildTriggerConfig(
+                        "downstream",
+                        new BlockingBehaviour(Result.FAILURE, Result.UNSTABLE, Result.FAILURE),
+                        Collections.singletonList(new BinaryFileParameterFactory("FILE", "*.bin")),
+                        Collections.emptyList())));
+
+        r.buildAndAssertSuccess(upstream);
+        r.buildAndAssertSuccess(upstream);
+
+        List<FreeStyleBuild> builds = downstream.getBuilds();
+        assertEquals(2, builds.size());
+        assertEquals("payload", downstream.getLastBuild().getWorkspace().child("FILE").readToString());
+        for (FreeStyleBuild build : builds) {
+            File copy = new File(build.getRootDir(), "fileParameters/FILE");
+            assertEquals("payload", Files.readString(copy.toPath(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, countStoredFiles(new File(r.jenkins.getRootDir(), "parameterized-trigger-files")));
+    }
+
+    @Test
+    void filesKeptOnNode(JenkinsRule r) throws Exception {
+        FreeStyleProject downstream = r.createFreeStyleProject("downstream");
+        downstream.addProperty(new ParametersDefinitionProperty(new FileParameterDefinition("FILE", "")));
+
+        FreeStyleProject upstream = r.createFreeStyleProject("upstream");
+        upstream.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                build.getWorkspace().child("a.bin").write("payload", "UTF-8");
+                return true;
+            }
+        });
+        upstream.getBuildersList()
+                .add(new TriggerBuilder(new BlockableBuildTriggerConfig(
+                        "downstream",
+                        new BlockingBehaviour(Result.FAILURE, Result.UNSTABLE, Result.FAILURE),
+                        Collections.singletonList(
+                                new BinaryFileParameterFactory("FILE", "*.bin", NoFilesFoundEnum.SKIP, true)),
+                        Collections.emptyList())));
+
+        FreeStyleBuild build = r.buildAndAssertSuccess(upstream);
+
+        FreeStyleBuild triggered = downstream.getLastBuild();
+        assertEquals("payload", triggered.getWorkspace().child("FILE").readToString());
+        r.assertLogContains("Copying file to FILE from this node", triggered);
+        assertFalse(new File(build.getRootDir(), "parameter-files").exists());
+        assertEquals(0, countStoredFiles(new File(r.jenkins.getRootDir(), "parameterized-trigger-files")));
+    }
+
+    @Test
+    void filesKeptOnNodeCopiedToAnotherNode(JenkinsRule r) throws Exception {
+        DumbSlave slave = r.createOnlineSlave();
+        FreeStyleProject downstream = r.createFreeStyleProject("downstream");
+        downstream.addProperty(new ParametersDefinitionProperty(new FileParameterDefinition("FILE", "")));
+        downstream.setAssignedNode(slave);
+
+        FreeStyleProject upstream = r.createFreeStyleProject("upstream");
+        upstream.setAssignedNode(r.jenkins);
+        upstream.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                build.getWorkspace().child("a.bin").write("payload", "UTF-8");
+                return true;
+            }
+        });
+        upstream.getBuildersList()
+                .add(new TriggerBuilder(new BlockableBuildTriggerConfig(
+                        "downstream",
+                        new BlockingBehaviour(Result.FAILURE, Result.UNSTABLE, Result.FAILURE),
+                        Collections.singletonList(
+                                new BinaryFileParameterFactory("FILE", "*.bin", NoFilesFoundEnum.SKIP, true)),
+                        Collections.emptyList())));
+
+        r.buildAndAssertSuccess(upstream);
+
+        FreeStyleBuild triggered = downstream.getLastBuild();
+        assertEquals(slave, triggered.getBuiltOn());
+        assertEquals("payload", triggered.getWorkspace().child("FILE").readToString());
+        r.assertLogContains("Copying file to FILE from the built-in node through the controller", triggered);
+        assertEquals(0, countStoredFiles(new File(r.jenkins.getRootDir(), "parameterized-trigger-files")));
+    }
+
+    private static long countStoredFiles(File root) throws IOException {
+        if (!root.exists()) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(root.toPath())) {
+            return files.filter(Files::isRegularFile)
+                    .filter(f -> !f.getParent().getFileName().toString().equals("tmp"))
+                    .count();
+        }
+    }
+}
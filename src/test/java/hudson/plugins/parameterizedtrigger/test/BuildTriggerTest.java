@@ -2,6 +2,7 @@ package hudson.plugins.parameterizedtrigger.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import hudson.AbortException;
 import hudson.FilePath;
@@ -13,26 +14,40 @@ import hudson.matrix.MatrixConfigurationSorter;
 import hudson.matrix.MatrixProject;
 import hudson.matrix.TextAxis;
 import hudson.model.AbstractBuild;
+import hudson.model.Action;
 import hudson.model.BuildListener;
 import hudson.model.Cause;
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.ParameterDefinition;
+import hudson.model.ParametersAction;
 import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Result;
 import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
 import hudson.plugins.parameterizedtrigger.AbstractBuildParameters;
+import hudson.plugins.parameterizedtrigger.BuildAvoidance;
+import hudson.plugins.parameterizedtrigger.BuildInfoExporterAction;
 import hudson.plugins.parameterizedtrigger.BuildTrigger;
 import hudson.plugins.parameterizedtrigger.BuildTriggerConfig;
 import hudson.plugins.parameterizedtrigger.CurrentBuildParameters;
 import hudson.plugins.parameterizedtrigger.FileBuildParameters;
+import hudson.plugins.parameterizedtrigger.PreQueueGate;
+import hudson.plugins.parameterizedtrigger.PredefinedBuildParameters;
 import hudson.plugins.parameterizedtrigger.ResultCondition;
 import hudson.tasks.Builder;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.CaptureEnvironmentBuilder;
+import org.jvnet.hudson.test.FailureBuilder;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
 
 /**
@@ -117,6 +132,154 @@ class BuildTriggerTest {
         assertEquals(configurations.get(1).getFullName(), project2, "Build should be triggered by matrix project.");
     }
 
+    @Test
+    void testDependencyGraphPicksUpProjectCreatedLater(JenkinsRule r) throws Exception {
+        FreeStyleProject upstream = r.createFreeStyleProject("upstream");
+        upstream.getPublishersList()
+                .add(new BuildTrigger(
+                        new BuildTriggerConfig("downstream", ResultCondition.SUCCESS, true, null, null, false)));
+        r.jenkins.rebuildDependencyGraph();
+        assertTrue(upstream.getDownstreamProjects().isEmpty());
+
+        FreeStyleProject downstream = r.createFreeStyleProject("downstream");
+        r.jenkins.rebuildDependencyGraph();
+        assertEquals(Collections.singletonList(downstream), upstream.getDownstreamProjects());
+
+        downstream.delete();
+        r.jenkins.rebuildDependencyGraph();
+        assertTrue(upstream.getDownstreamProjects().isEmpty());
+    }
+
+    @Test
+    void testBaseActionsComputedOncePerBuild(JenkinsRule r) throws Exception {
+        FreeStyleProject downstream1 = r.createFreeStyleProject("downstream1");
+        FreeStyleProject downstream2 = r.createFreeStyleProject("downstream2");
+        FreeStyleProject downstream3 = r.createFreeStyleProject("downstream3");
+        FreeStyleProject upstream = r.createFreeStyleProject("upstream");
+        CountingBuildParameters.COUNT.set(0);
+        List<AbstractBuildParameters> params = new ArrayList<>();
+        params.add(new CountingBuildParameters());
+        upstream.getPublishersList()
+                .add(new BuildTrigger(new BuildTriggerConfig(
+                        "downstream1,downstream2,downstream3", ResultCondition.SUCCESS, false, null, params, false)));
+        r.jenkins.rebuildDependencyGraph();
+
+        r.buildAndAssertSuccess(upstream);
+        r.waitUntilNoActivity();
+
+        assertNotNull(downstream1.getLastBuild());
+        assertNotNull(downstream2.getLastBuild());
+        assertNotNull(downstream3.getLastBuild());
+        assertEquals(1, CountingBuildParameters.COUNT.get(), "Base actions should be computed once per build");
+    }
+
+    @Test
+    void testReusedBuildIsRecorded(JenkinsRule r) throws Exception {
+        FreeStyleProject downstream = r.createFreeStyleProject("downstream");
+        FreeStyleProject upstream = r.createFreeStyleProject("upstream");
+        // a variable in the projects keeps the trigger off the dependency graph
+        upstream.addProperty(
+                new ParametersDefinitionProperty(new StringParameterDefinition("DOWNSTREAM", "downstream")));
+        upstream.getPublishersList()
+                .add(new BuildTrigger(new BuildTriggerConfig(
+                        "$DOWNSTREAM",
+                        ResultCondition.SUCCESS,
+                        false,
+                        null,
+                        Collections.singletonList(new PredefinedBuildParameters("A=1")),
+                        false,
+                        null,
+                        false,
+                        new BuildAvoidance(null, 60))));
+
+        r.buildAndAssertSuccess(upstream);
+        r.waitUntilNoActivity();
+        FreeStyleBuild second = r.buildAndAssertSuccess(upstream);
+
+        assertEquals(1, downstream.getBuilds().size());
+        assertEquals(
+                Collections.singletonList(downstream.getBuildByNumber(1)),
+                second.getAction(BuildInfoExporterAction.class).getTriggeredBuilds());
+    }
+
+    @Test
+    void testReusedBuildThroughDependencyGraph(JenkinsRule r) throws Exception {
+        FreeStyleProject downstream = r.createFreeStyleProject("downstream");
+        FreeStyleProject upstream = r.createFreeStyleProject("upstream");
+        BuildTriggerConfig config =
+                new BuildTriggerConfig("downstream", ResultCondition.SUCCESS, new PredefinedBuildParameters("A=1"));
+        config.setAvoidance(new BuildAvoidance(null, 60));
+        upstream.getPublishersList().add(new BuildTrigger(config));
+        r.jenkins.rebuildDependencyGraph();
+
+        r.buildAndAssertSuccess(upstream);
+        r.waitUntilNoActivity();
+        r.buildAndAssertSuccess(upstream);
+        r.waitUntilNoActivity();
+
+        assertEquals(1, downstream.getBuilds().size());
+    }
+
+    @Test
+    void testPreQueue(JenkinsRule r) throws Exception {
+        FreeStyleProject downstream = r.createFreeStyleProject("downstream");
+        downstream.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("FOO", "default")));
+        CaptureEnvironmentBuilder builder = new CaptureEnvironmentBuilder();
+        downstream.getBuildersList().add(builder);
+
+        FreeStyleProject upstream = r.createFreeStyleProject("upstream");
+        AtomicInteger queued = new AtomicInteger();
+        upstream.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                queued.set(r.jenkins.getQueue().getItems(downstream).size());
+                return true;
+            }
+        });
+        upstream.getPublishersList()
+                .add(new BuildTrigger(
+                        Collections.singletonList(new BuildTriggerConfig(
+                                "downstream", ResultCondition.SUCCESS, new PredefinedBuildParameters("FOO=bar"))),
+                        true));
+        FreeStyleProject failing = r.createFreeStyleProject("failing");
+        failing.getBuildersList().add(new FailureBuilder());
+        failing.getPublishersList()
+                .add(new BuildTrigger(
+                        Collections.singletonList(new BuildTriggerConfig(
+                                "downstream", ResultCondition.SUCCESS, new PredefinedBuildParameters("FOO=baz"))),
+                        true));
+        r.jenkins.rebuildDependencyGraph();
+
+        FreeStyleBuild upstreamBuild = r.buildAndAssertSuccess(upstream);
+        r.waitUntilNoActivity();
+        assertEquals(1, queued.get(), "The triggered build should be queued while the upstream build runs");
+        r.assertLogContains("Queued downstream ahead of time", upstreamBuild);
+        // the trigger took the held build rather than queueing another one
+        r.assertLogContains("Triggering downstream, queued ahead of time", upstreamBuild);
+        r.assertLogNotContains("Cancelled", upstreamBuild);
+        assertEquals(1, downstream.getLastBuild().getNumber());
+        PreQueueGate.Gate gate = downstream.getLastBuild().getAction(PreQueueGate.Gate.class);
+        assertNotNull(gate);
+        assertTrue(gate.isOpen());
+        assertEquals("bar", builder.getEnvVars().get("FOO"));
+
+        // the held build is cancelled when the condition is not met
+        r.buildAndAssertStatus(Result.FAILURE, failing);
+        r.waitUntilNoActivity();
+        assertEquals(0, r.jenkins.getQueue().getItems(downstream).size());
+        assertEquals(1, downstream.getLastBuild().getNumber());
+    }
+
+    public static class CountingBuildParameters extends AbstractBuildParameters {
+        static final AtomicInteger COUNT = new AtomicInteger();
+
+        @Override
+        public Action getAction(AbstractBuild<?, ?> build, TaskListener listener) {
+            COUNT.incrementAndGet();
+            return new ParametersAction(new StringParameterValue("KEY", "value"));
+        }
+    }
+
     public static class MatrixConfigurationSorterTestImpl extends MatrixConfigurationSorter implements Serializable {
 
         @Override
@@ -0,0 +1,107 @@
+package hudson.plugins.parameterizedtrigger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import hudson.AbortException;
+import hudson.model.TaskListener;
+import hudson.plugins.parameterizedtrigger.AbstractBuildParameters;
+import hudson.plugins.parameterizedtrigger.CombinationStrategy;
+import hudson.plugins.parameterizedtrigger.PredefinedBuildParameters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class CombinationStrategyTest {
+
+    private final TaskListener listener = mock(TaskListener.class);
+
+    CombinationStrategyTest() {
+        when(listener.getLogger()).thenReturn(System.out);
+    }
+
+    @Test
+    void cartesian() throws Exception {
+        assertEquals(60, new CombinationStrategy.Cartesian().combine(factories(3, 4, 5), listener).size());
+    }
+
+    @Test
+    void zip() throws Exception {
+        List<List<AbstractBuildParameters>> factories = factories(3, 4);
+        List<List<AbstractBuildParameters>> combinations = new CombinationStrategy.Zip().combine(factories, listener);
+        assertEquals(3, combinations.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(List.of(factories.get(0).get(i), factories.get(1).get(i)), combinations.get(i));
+        }
+    }
+
+    @Test
+    void allPairsCoversEveryPair() throws Exception {
+        List<List<AbstractBuildParameters>> factories = factories(10, 10, 10, 10, 10);
+        List<List<AbstractBuildParameters>> combinations =
+                new CombinationStrategy.AllPairs().combine(factories, listener);
+        assertTrue(combinations.size() < 200, "got " + combinations.size());
+
+        Set<List<AbstractBuildParameters>> pairs = new HashSet<>();
+        for (List<AbstractBuildParameters> combination : combinations) {
+            for (int a = 0; a < combination.size(); a++) {
+                for (int b = a + 1; b < combination.size(); b++) {
+                    pairs.add(List.of(combination.get(a), combination.get(b)));
+                }
+            }
+        }
+        assertEquals(10 * 10 * 10, pairs.size());
+    }
+
+    @Test
+    void allPairsBeyondLimitShouldNotWork() {
+        AbstractBuildParameters value = new PredefinedBuildParameters("F=v");
+        // 70000 * 70000 overflows an int
+        List<List<AbstractBuildParameters>> factories =
+                List.of(Collections.nCopies(70000, value), Collections.nCopies(70000, value));
+        assertThrows(AbortException.class, () -> new CombinationStrategy.AllPairs().combine(factories, listener));
+        List<List<AbstractBuildParameters>> tooMany = List.of(
+                Collections.nCopies(1000, value), Collections.nCopies(1000, value), Collections.nCopies(2, value));
+        assertThrows(AbortException.class, () -> new CombinationStrategy.AllPairs().combine(tooMany, listener));
+    }
+
+    @Test
+    void randomSampleIsDistinctAndRepeatable() throws Exception {
+        List<List<AbstractBuildParameters>> factories = factories(10, 10, 10);
+        List<List<AbstractBuildParameters>> combinations =
+                new CombinationStrategy.RandomSample(42, 25).combine(factories, listener);
+        assertEquals(25, combinations.size());
+        assertEquals(25, new HashSet<>(combinations).size());
+        assertEquals(combinations, new CombinationStrategy.RandomSample(42, 25).combine(factories, listener));
+
+        assertEquals(1000, new CombinationStrategy.RandomSample(42, 5000).combine(factories, listener).size());
+    }
+
+    @Test
+    void randomSampleBeyondLimitShouldNotWork() {
+        List<List<AbstractBuildParameters>> factories = factories(10, 10, 10);
+        assertThrows(
+                AbortException.class,
+                () -> new CombinationStrategy.RandomSample(42, Integer.MAX_VALUE).combine(factories, listener));
+        assertThrows(
+                AbortException.class, () -> new CombinationStrategy.RandomSample(42, 0).combine(factories, listener));
+    }
+
+    private static List<List<AbstractBuildParameters>> factories(int... sizes) {
+        List<List<AbstractBuildParameters>> factories = new ArrayList<>();
+        for (int f = 0; f < sizes.length; f++) {
+            List<AbstractBuildParameters> values = new ArrayList<>();
+            for (int v = 0; v < sizes[f]; v++) {
+                values.add(new PredefinedBuildParameters("F" + f + "=" + v));
+            }
+            factories.add(values);
+        }
+        return factories;
+    }
+}
@@ -0,0 +1,70 @@
+package hudson.plugins.parameterizedtrigger.test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.matrix.AxisList;
+import hudson.matrix.Combination;
+import hudson.matrix.TextAxis;
+import hudson.plugins.parameterizedtrigger.matrix.CompiledCombinationFilter;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+class CompiledCombinationFilterTest {
+
+    private static final Combination LINUX_17 = new Combination(Map.of("OS", "linux", "JDK", "17"));
+    private static final Combination WINDOWS_21 = new Combination(Map.of("OS", "windows", "JDK", "21"));
+
+    @Test
+    void compiledOncePerExpression() {
+        assertSame(
+                CompiledCombinationFilter.compile("OS == 'linux'"), CompiledCombinationFilter.compile("OS == 'linux'"));
+    }
+
+    @Test
+    void blankMatchesEverything() {
+        CompiledCombinationFilter filter = CompiledCombinationFilter.compile("  ");
+        assertTrue(filter.isPlainJava());
+        assertTrue(filter.matches(new AxisList(), LINUX_17));
+    }
+
+    @Test
+    void comparisonsAreEvaluatedInJava() {
+        CompiledCombinationFilter filter =
+                CompiledCombinationFilter.compile("OS == 'linux' && (JDK == \"17\" || JDK != '21')");
+        assertTrue(filter.isPlainJava());
+        assertTrue(filter.matches(new AxisList(), LINUX_17));
+        assertFalse(filter.matches(new AxisList(), WINDOWS_21));
+
+        filter = CompiledCombinationFilter.compile("!(OS == 'linux') || 'windows' == OS");
+        assertTrue(filter.isPlainJava());
+        assertFalse(filter.matches(new AxisList(), LINUX_17));
+        assertTrue(filter.matches(new AxisList(), WINDOWS_21));
+    }
+
+    @Test
+    void otherExpressionsNeedGroovy() {
+        assertFalse(CompiledCombinationFilter.compile("OS.startsWith('lin')").isPlainJava());
+        assertFalse(CompiledCombinationFilter.compile("OS == \"${JDK}\"").isPlainJava());
+        assertFalse(CompiledCombinationFilter.compile("!OS == 'linux'").isPlainJava());
+        assertFalse(CompiledCombinationFilter.compile("index % 2 == 0").isPlainJava());
+        assertFalse(CompiledCombinationFilter.compile("OS == 'linux' &&").isPlainJava());
+    }
+
+    @Test
+    @WithJenkins
+    void groovyResultsDependOnTheAxes(JenkinsRule r) {
+        CompiledCombinationFilter filter = CompiledCombinationFilter.compile("index == 0");
+        assertFalse(filter.isPlainJava());
+        Combination linux = new Combination(Map.of("OS", "linux"));
+        AxisList linuxFirst = new AxisList(new TextAxis("OS", "linux", "windows"));
+        AxisList windowsFirst = new AxisList(new TextAxis("OS", "windows", "linux"));
+        assertTrue(filter.matches(linuxFirst, linux));
+        // Groovy results are not remembered, they may depend on more than the combination
+        assertFalse(filter.matches(windowsFirst, linux));
+        assertTrue(filter.matches(linuxFirst, linux));
+    }
+}
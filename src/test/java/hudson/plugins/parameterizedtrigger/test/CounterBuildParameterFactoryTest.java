@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import hudson.EnvVars;
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
 import hudson.model.Cause.UserIdCause;
 import hudson.model.FreeStyleBuild;
 import hudson.model.ParameterDefinition;
@@ -11,16 +13,22 @@ import hudson.model.ParametersDefinitionProperty;
 import hudson.model.Project;
 import hudson.model.Result;
 import hudson.model.StringParameterDefinition;
+import hudson.model.TaskListener;
+import hudson.plugins.parameterizedtrigger.AbstractBuildParameterFactory;
+import hudson.plugins.parameterizedtrigger.AbstractBuildParameters;
 import hudson.plugins.parameterizedtrigger.BlockableBuildTriggerConfig;
 import hudson.plugins.parameterizedtrigger.BlockingBehaviour;
 import hudson.plugins.parameterizedtrigger.CounterBuildParameterFactory;
 import hudson.plugins.parameterizedtrigger.TriggerBuilder;
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
@@ -101,4 +109,66 @@ class CounterBuildParameterFactoryTest {
         assertEquals(new HashSet<>(Arrays.asList("COUNT0", "COUNT1")), values);
         assertEquals(new HashSet<>(Arrays.asList("COUNT0", "COUNT1", "COUNT2")), newValues);
     }
+
+    @Test
+    void testCountsAreCreatedWhileTriggering(JenkinsRule r) throws Exception {
+        Project<?, ?> projectA = r.createFreeStyleProject();
+        Project projectB = r.createFreeStyleProject();
+        projectB.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("TEST", "test")));
+        ObservingFactory.ACTIONS.set(0);
+        ObservingFactory.SEEN.clear();
+        projectA.getBuildersList()
+                .add(new TriggerBuilder(new BlockableBuildTriggerConfig(
+                        projectB.getName(),
+                        null,
+                        Collections.singletonList(
+                                new ObservingFactory(new CounterBuildParameterFactory("0", "4", "1", "TEST=$COUNT"))),
+                        Collections.emptyList())));
+
+        r.buildAndAssertSuccess(projectA);
+        r.waitUntilNoActivity();
+        // each value is read once, right before its build is triggered, none of them up front
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), ObservingFactory.SEEN);
+        assertEquals(5, projectB.getBuilds().size());
+    }
+
+    /**
+     * Records, each time a value of {@code factory} is read, how many builds were triggered so far.
+     */
+    public static class ObservingFactory extends AbstractBuildParameterFactory {
+        static final AtomicInteger ACTIONS = new AtomicInteger();
+        static final List<Integer> SEEN = Collections.synchronizedList(new ArrayList<>());
+
+        private final AbstractBuildParameterFactory factory;
+
+        public ObservingFactory(AbstractBuildParameterFactory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public List<AbstractBuildParameters> getParameters(AbstractBuild<?, ?> build, TaskListener listener)
+                throws IOException, InterruptedException, AbstractBuildParameters.DontTriggerException {
+            List<AbstractBuildParameters> values = factory.getParameters(build, listener);
+            return new AbstractList<>() {
+                @Override
+                public AbstractBuildParameters get(int index) {
+                    SEEN.add(ACTIONS.get());
+                    AbstractBuildParameters value = values.get(index);
+                    return new AbstractBuildParameters() {
+                        @Override
+                        public Action getAction(AbstractBuild<?, ?> build, TaskListener listener)
+                                throws IOException, InterruptedException, DontTriggerException {
+                            ACTIONS.incrementAndGet();
+                            return value.getAction(build, listener);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.size();
+                }
+            };
+        }
+    }
 }
@@ -4,12 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
+import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.model.AbstractBuild;
 import hudson.model.TaskListener;
 import hudson.plugins.parameterizedtrigger.AbstractBuildParameters;
 import hudson.plugins.parameterizedtrigger.CounterBuildParameterFactory;
 import hudson.plugins.parameterizedtrigger.CounterBuildParameterFactory.SteppingValidationEnum;
+import hudson.plugins.parameterizedtrigger.PredefinedBuildParameters;
 import java.io.IOException;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -74,6 +76,64 @@ class CounterBuildParameterFactoryUnitTest {
         assertEquals(0, parameters.size());
     }
 
+    @Test
+    void countingUpToTheLimitShouldWork() throws Exception {
+        List<AbstractBuildParameters> parameters = getParameters(0, 99999, 1);
+        assertEquals(100000, parameters.size());
+        assertEquals(parameters.get(99999).getClass(), parameters.get(0).getClass());
+    }
+
+    @Test
+    void countingBeyondLimitShouldNotWork() {
+        assertThrows(AbortException.class, () -> getParameters(0, Long.MAX_VALUE, 1));
+        assertThrows(AbortException.class, () -> getParameters(Long.MIN_VALUE, Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    void shardingShouldSplitTheRange() throws Exception {
+        List<AbstractBuildParameters> parameters = getShards(1, 10, 1, "3", null);
+        assertEquals(3, parameters.size());
+        assertEquals(
+                "SHARD_FROM=1\nSHARD_TO=4\nSHARD_INDEX=0\nSHARD_COUNT=3\nFIRST=1",
+                ((PredefinedBuildParameters) parameters.get(0)).getProperties());
+        assertEquals(
+                "SHARD_FROM=9\nSHARD_TO=10\nSHARD_INDEX=2\nSHARD_COUNT=3\nFIRST=9",
+                ((PredefinedBuildParameters) parameters.get(2)).getProperties());
+
+        parameters = getShards(0, 9999, 1, null, "200");
+        assertEquals(50, parameters.size());
+        assertEquals(
+                "SHARD_FROM=9800\nSHARD_TO=9999\nSHARD_INDEX=49\nSHARD_COUNT=50\nFIRST=9800",
+                ((PredefinedBuildParameters) parameters.get(49)).getProperties());
+    }
+
+    @Test
+    void shardingWithMoreShardsThanValues() throws Exception {
+        assertEquals(2, getShards(1, 2, 1, "5", null).size());
+    }
+
+    @Test
+    void shardingWithNoShardsShouldNotWork() {
+        assertThrows(AbortException.class, () -> getShards(1, 10, 1, "0", null));
+    }
+
+    private List<AbstractBuildParameters> getShards(long from, long to, long step, String shardCount, String shardSize)
+            throws IOException, InterruptedException, AbstractBuildParameters.DontTriggerException {
+        AbstractBuild<?, ?> build = mock(AbstractBuild.class);
+        TaskListener listener = mock(TaskListener.class);
+        when(build.getEnvironment(listener)).thenReturn(new EnvVars());
+        CounterBuildParameterFactory counterFactory = new CounterBuildParameterFactory(
+                Long.toString(from),
+                Long.toString(to),
+                Long.toString(step),
+                "FIRST=$COUNT",
+                SteppingValidationEnum.FAIL,
+                shardCount,
+                shardSize);
+
+        return counterFactory.getParameters(build, listener);
+    }
+
     private List<AbstractBuildParameters> getParameters(long from, long to, long step)
             throws IOException, InterruptedException, AbstractBuildParameters.DontTriggerException {
         return getParameters(from, to, step, SteppingValidationEnum.FAIL);
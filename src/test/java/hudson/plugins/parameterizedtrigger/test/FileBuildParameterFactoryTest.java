@@ -41,9 +41,12 @@ import hudson.plugins.parameterizedtrigger.BlockableBuildTriggerConfig;
 import hudson.plugins.parameterizedtrigger.BlockingBehaviour;
 import hudson.plugins.parameterizedtrigger.FileBuildParameterFactory;
 import hudson.plugins.parameterizedtrigger.FileBuildParameterFactory.NoFilesFoundEnum;
+import hudson.plugins.parameterizedtrigger.ParsedPropertiesCache;
 import hudson.plugins.parameterizedtrigger.TriggerBuilder;
 import hudson.util.FormValidation;
+import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -154,6 +157,58 @@ class FileBuildParameterFactoryTest {
         assertEquals(new HashSet<>(Arrays.asList("hello_abc", "hello_xyz")), values);
     }
 
+    @Test
+    void testFilesParsedInChunks(JenkinsRule r) throws Exception {
+        Project projectB = r.createFreeStyleProject();
+        CaptureAllEnvironmentBuilder builder = new CaptureAllEnvironmentBuilder();
+        projectB.getBuildersList().add(builder);
+        projectB.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("TEST", "test")));
+
+        FreeStyleProject projectA = r.createFreeStyleProject();
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add("v" + i);
+        }
+        projectA.getBuildersList().add(new TestBuilder() {
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                for (String value : expected) {
+                    // 7 bytes each
+                    build.getWorkspace().child(value + ".txt").write("TEST=" + value, "UTF-8");
+                }
+                return true;
+            }
+        });
+        projectA.getBuildersList().add(createTriggerBuilder(projectB, NoFilesFoundEnum.SKIP));
+
+        long maxChunkBytes = FileBuildParameterFactory.MAX_CHUNK_BYTES;
+        try {
+            // exactly two files per chunk, a file over the boundary, and a chunk smaller than a file
+            for (long chunk : new long[] {14, 15, 1}) {
+                FileBuildParameterFactory.MAX_CHUNK_BYTES = chunk;
+                ParsedPropertiesCache cache = ParsedPropertiesCache.get();
+                cache.clear();
+                long hits = cache.getHitCount();
+                int before = projectB.getBuilds().size();
+
+                r.buildAndAssertSuccess(projectA);
+                r.waitUntilNoActivity();
+                // every file was parsed, none reused
+                assertEquals(hits, cache.getHitCount());
+
+                List<FreeStyleBuild> builds = projectB.getBuilds();
+                assertEquals(before + 10, builds.size());
+                Set<String> values = new HashSet<>();
+                for (FreeStyleBuild build : builds.subList(0, 10)) {
+                    values.add(builder.getEnvVars().get(build.getId()).get("TEST"));
+                }
+                assertEquals(expected, values, "chunks of " + chunk + " bytes");
+            }
+        } finally {
+            FileBuildParameterFactory.MAX_CHUNK_BYTES = maxChunkBytes;
+        }
+    }
+
     @Test
     void testNoFilesSkip(JenkinsRule r) throws Exception {
         // create triggered build, with capture env builder
@@ -217,6 +272,32 @@ class FileBuildParameterFactoryTest {
         assertEquals(0, builds.size());
     }
 
+    @Test
+    void testFileTooLargeSkip(JenkinsRule r) throws Exception {
+        Project projectB = r.createFreeStyleProject();
+
+        FreeStyleProject projectA = r.createFreeStyleProject();
+        projectA.getBuildersList().add(new TestBuilder() {
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                build.getWorkspace().child("small.txt").write("TEST=small", "UTF-8");
+                // larger than the default limit of FileBuildParameters
+                File big = new File(build.getWorkspace().getRemote(), "big.txt");
+                try (RandomAccessFile f = new RandomAccessFile(big, "rw")) {
+                    f.setLength(17L * 1024 * 1024);
+                }
+                return true;
+            }
+        });
+        projectA.getBuildersList().add(createTriggerBuilder(projectB, NoFilesFoundEnum.SKIP));
+
+        FreeStyleBuild build = r.buildAndAssertSuccess(projectA);
+        r.assertLogContains("Could not read the files matching *.txt: big.txt is larger than the maximum", build);
+
+        r.waitUntilNoActivity();
+        assertEquals(0, projectB.getBuilds().size());
+    }
+
     @Test
     void testUtf8File(JenkinsRule r) throws Exception {
         // create triggered build, with capture env builder
@@ -31,6 +31,7 @@ import hudson.matrix.AxisList;
 import hudson.matrix.LabelAxis;
 import hudson.matrix.MatrixBuild;
 import hudson.matrix.MatrixProject;
+import hudson.matrix.MatrixRun;
 import hudson.matrix.TextAxis;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
@@ -44,6 +45,7 @@ import hudson.model.ParametersDefinitionProperty;
 import hudson.model.Project;
 import hudson.model.StringParameterDefinition;
 import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
 import hudson.model.labels.LabelExpression;
 import hudson.plugins.parameterizedtrigger.BlockableBuildTriggerConfig;
 import hudson.plugins.parameterizedtrigger.BuildTrigger;
@@ -719,6 +721,32 @@ class FileBuildTriggerConfigTest {
         }
     }
 
+    @Test
+    void testMatrixBuildsKeepTheOrderOfTheRuns(JenkinsRule r) throws Exception {
+        MatrixProject upstream = r.createProject(MatrixProject.class);
+        String[] children = new String[12];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = "child" + i;
+        }
+        upstream.setAxes(new AxisList(new TextAxis("childname", children)));
+        upstream.getBuildersList().add(new WriteFileBuilder("properties.txt", "triggered_${childname}=true"));
+        MatrixBuild b = r.buildAndAssertSuccess(upstream);
+
+        // the files of the runs are read concurrently, the values are still in the order of the runs
+        ParametersAction action = (ParametersAction) new FileBuildParameters(
+                        "properties.txt", null, false, true, null, false)
+                .getAction(b, TaskListener.NULL);
+        List<String> expected = new ArrayList<>();
+        for (MatrixRun run : b.getRuns()) {
+            expected.add("triggered_" + run.getParent().getCombination().get("childname"));
+        }
+        List<String> names = new ArrayList<>();
+        for (ParameterValue value : action.getParameters()) {
+            names.add(value.getName());
+        }
+        assertEquals(expected, names);
+    }
+
     @Test
     void testMatrixBuildsOnlyExactRuns(JenkinsRule r) throws Exception {
         MatrixProject upstream = r.createProject(MatrixProject.class);
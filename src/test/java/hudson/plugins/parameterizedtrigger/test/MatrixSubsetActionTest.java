@@ -0,0 +1,55 @@
+package hudson.plugins.parameterizedtrigger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.matrix.Combination;
+import hudson.plugins.parameterizedtrigger.matrix.MatrixSubsetAction;
+import hudson.util.XStream2;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class MatrixSubsetActionTest {
+
+    @Test
+    void parseCombinations() {
+        Set<Combination> combinations = MatrixSubsetAction.parseCombinations(
+                "# selected by impact analysis\nOS=linux,JDK=17\n\n JDK = 21 , OS = windows ;OS=linux,JDK=21\n");
+        assertEquals(
+                Set.of(
+                        new Combination(Map.of("OS", "linux", "JDK", "17")),
+                        new Combination(Map.of("OS", "windows", "JDK", "21")),
+                        new Combination(Map.of("OS", "linux", "JDK", "21"))),
+                combinations);
+    }
+
+    @Test
+    void parseInvalidCombination() {
+        assertThrows(IllegalArgumentException.class, () -> MatrixSubsetAction.parseCombinations("OS=linux,17"));
+    }
+
+    @Test
+    void listedCombinations() {
+        MatrixSubsetAction a = new MatrixSubsetAction(null, MatrixSubsetAction.parseCombinations("OS=linux,JDK=17"));
+        assertTrue(a.isListed(new Combination(Map.of("JDK", "17", "OS", "linux"))));
+        assertFalse(a.isListed(new Combination(Map.of("JDK", "21", "OS", "linux"))));
+
+        MatrixSubsetAction all = new MatrixSubsetAction("OS == 'linux'");
+        assertNull(all.getCombinations());
+        assertTrue(all.isListed(new Combination(Map.of("JDK", "21", "OS", "windows"))));
+    }
+
+    @Test
+    void combinationsWithSeparatorsInValuesAreRestored() {
+        Set<Combination> combinations = Set.of(
+                new Combination(Map.of("OS", "linux,arm=64;v8", "JDK", "17\\21")),
+                new Combination(Map.of("OS", "line\nbreak", "JDK", "a\\,b")));
+        XStream2 xs = new XStream2();
+        MatrixSubsetAction a = (MatrixSubsetAction) xs.fromXML(xs.toXML(new MatrixSubsetAction(null, combinations)));
+        assertEquals(combinations, a.getCombinations());
+    }
+}
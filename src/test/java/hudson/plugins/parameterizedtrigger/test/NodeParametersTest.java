@@ -8,12 +8,27 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import hudson.model.AbstractBuild;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.ParametersDefinitionProperty;
 import hudson.model.Project;
+import hudson.model.Result;
+import hudson.model.StringParameterDefinition;
+import hudson.plugins.parameterizedtrigger.AllNodesForLabelBuildParameterFactory;
+import hudson.plugins.parameterizedtrigger.BlockableBuildTriggerConfig;
+import hudson.plugins.parameterizedtrigger.BlockingBehaviour;
 import hudson.plugins.parameterizedtrigger.BuildTrigger;
 import hudson.plugins.parameterizedtrigger.BuildTriggerConfig;
+import hudson.plugins.parameterizedtrigger.CounterBuildParameterFactory;
 import hudson.plugins.parameterizedtrigger.NodeParameters;
 import hudson.plugins.parameterizedtrigger.ResultCondition;
+import hudson.plugins.parameterizedtrigger.TriggerBuilder;
 import hudson.slaves.DumbSlave;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.CaptureEnvironmentBuilder;
 import org.jvnet.hudson.test.JenkinsRule;
@@ -135,4 +150,85 @@ class NodeParametersTest {
         assertNotNull(buildB2, "ProjectB failed to build second time");
         assertEquals(slave2, buildB2.getBuiltOn());
     }
+
+    @Test
+    void testAllNodesForLabel(JenkinsRule r) throws Exception {
+        DumbSlave slave0 = r.createOnlineSlave(Label.get("pool"));
+        DumbSlave slave1 = r.createOnlineSlave(Label.get("pool"));
+        DumbSlave offline = r.createOnlineSlave(Label.get("pool"));
+        r.createOnlineSlave(Label.get("other"));
+        offline.toComputer().disconnect(null).get();
+
+        FreeStyleProject projectB = r.createFreeStyleProject("projectB");
+        FreeStyleProject projectA = r.createFreeStyleProject("projectA");
+        projectA.getBuildersList()
+                .add(new TriggerBuilder(new BlockableBuildTriggerConfig(
+                        "projectB",
+                        new BlockingBehaviour(Result.FAILURE, Result.UNSTABLE, Result.FAILURE),
+                        Collections.singletonList(new AllNodesForLabelBuildParameterFactory("pool", true, false)),
+                        Collections.emptyList())));
+
+        FreeStyleBuild buildA = r.buildAndAssertSuccess(projectA);
+
+        r.assertLogContains("pool matches 3 nodes, building on 2, 1 offline or busy ones skipped", buildA);
+        Set<Node> nodes = new HashSet<>();
+        for (FreeStyleBuild b : projectB.getBuilds()) {
+            nodes.add(b.getBuiltOn());
+        }
+        assertEquals(Set.of(slave0, slave1), nodes);
+    }
+
+    @Test
+    void testPreferSameNodeFallsBackToLeastLoaded(JenkinsRule r) throws Exception {
+        DumbSlave slave0 = r.createOnlineSlave(Label.get("pool"));
+        DumbSlave slave1 = r.createOnlineSlave(Label.get("pool"));
+
+        Project<?, ?> projectA = r.createFreeStyleProject("projectA");
+        projectA.getPublishersList()
+                .add(new BuildTrigger(new BuildTriggerConfig(
+                        "projectB", ResultCondition.SUCCESS, new NodeParameters(true, "pool", 0))));
+        // the only executor of slave0 stays busy with projectA while it triggers
+        projectA.setAssignedNode(slave0);
+
+        CaptureEnvironmentBuilder builder = new CaptureEnvironmentBuilder();
+        Project projectB = r.createFreeStyleProject("projectB");
+        projectB.getBuildersList().add(builder);
+        r.jenkins.rebuildDependencyGraph();
+
+        AbstractBuild buildA = projectA.scheduleBuild2(0).get();
+        r.waitUntilNoActivity();
+
+        r.assertLogContains("Building on " + slave1.getNodeName(), buildA);
+        assertEquals(slave1.getNodeName(), builder.getEnvVars().get("NODE_NAME"));
+    }
+
+    @Test
+    void testPreferSameNodeSpreadsTheTriggeredBuilds(JenkinsRule r) throws Exception {
+        DumbSlave slave0 = r.createOnlineSlave(Label.get("pool"));
+        DumbSlave slave1 = r.createOnlineSlave(Label.get("pool"));
+        DumbSlave slave2 = r.createOnlineSlave(Label.get("pool"));
+
+        FreeStyleProject projectB = r.createFreeStyleProject("projectB");
+        projectB.setConcurrentBuild(true);
+        projectB.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("I", "")));
+        FreeStyleProject projectA = r.createFreeStyleProject("projectA");
+        projectA.getBuildersList()
+                .add(new TriggerBuilder(new BlockableBuildTriggerConfig(
+                        "projectB",
+                        null,
+                        Collections.singletonList(new CounterBuildParameterFactory("1", "2", "1", "I=$COUNT")),
+                        Collections.singletonList(new NodeParameters(true, "pool", 0)))));
+        // the only executor of slave0 stays busy with projectA while it triggers
+        projectA.setAssignedNode(slave0);
+
+        r.buildAndAssertSuccess(projectA);
+        r.waitUntilNoActivity();
+
+        // the second build counts the first one, queued for the node it chose
+        Set<Node> nodes = new HashSet<>();
+        for (FreeStyleBuild b : projectB.getBuilds()) {
+            nodes.add(b.getBuiltOn());
+        }
+        assertEquals(Set.of(slave1, slave2), nodes);
+    }
 }
@@ -0,0 +1,57 @@
+package hudson.plugins.parameterizedtrigger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import hudson.model.Action;
+import hudson.model.BooleanParameterValue;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.StringParameterValue;
+import hudson.plugins.parameterizedtrigger.ParameterValueInterner;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ParameterValueInternerTest {
+
+    @Test
+    void equalValuesAreShared() {
+        ParameterValueInterner interner = new ParameterValueInterner();
+        List<ParameterValue> first = parameters(interner, "1");
+        List<ParameterValue> second = parameters(interner, "2");
+
+        assertSame(first.get(0), second.get(0));
+        assertSame(first.get(1), second.get(1));
+        assertNotSame(first.get(2), second.get(2));
+        assertEquals("2", second.get(2).getValue());
+        assertEquals(4, interner.size());
+    }
+
+    @Test
+    void actionIsKeptWhenNothingIsShared() {
+        ParametersAction a = new ParametersAction(new StringParameterValue("A", "1"));
+        List<Action> actions = List.of(a);
+        assertSame(actions, new ParameterValueInterner().intern(actions));
+    }
+
+    @Test
+    void descriptionIsPartOfTheValue() {
+        ParameterValueInterner interner = new ParameterValueInterner();
+        ParametersAction a = new ParametersAction(new StringParameterValue("A", "1", "one"));
+        ParametersAction b = new ParametersAction(new StringParameterValue("A", "1", "uno"));
+        ParametersAction internedA = (ParametersAction) interner.intern(List.of(a)).get(0);
+        ParametersAction internedB = (ParametersAction) interner.intern(List.of(b)).get(0);
+        assertEquals("uno", internedB.getParameter("A").getDescription());
+        assertNotSame(internedA.getParameter("A"), internedB.getParameter("A"));
+    }
+
+    private static List<ParameterValue> parameters(ParameterValueInterner interner, String combination) {
+        ParametersAction a = new ParametersAction(
+                new StringParameterValue("UPSTREAM", "job"),
+                new BooleanParameterValue("RELEASE", true),
+                new StringParameterValue("COMBINATION", combination));
+        List<Action> actions = interner.intern(List.of(a));
+        return ((ParametersAction) actions.get(0)).getParameters();
+    }
+}
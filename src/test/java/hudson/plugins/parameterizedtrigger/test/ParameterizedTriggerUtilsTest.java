@@ -2,11 +2,20 @@ package hudson.plugins.parameterizedtrigger.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import hudson.model.ParameterValue;
 import hudson.model.ParametersAction;
 import hudson.model.StringParameterValue;
+import hudson.plugins.parameterizedtrigger.ParameterSetBuilder;
 import hudson.plugins.parameterizedtrigger.ParameterizedTriggerUtils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
 import org.junit.jupiter.api.Test;
 
 class ParameterizedTriggerUtilsTest {
@@ -26,6 +35,41 @@ class ParameterizedTriggerUtilsTest {
         assertStringParameterValueEquals("value3", result.getParameter("key3"));
     }
 
+    @Test
+    void testParameterSetBuilderKeepsFirstPositionAndLastValue() {
+        ParameterSetBuilder builder = new ParameterSetBuilder()
+                .add(new ParametersAction(new StringParameterValue("a", "1"), new StringParameterValue("b", "1")))
+                .add(new ParametersAction(new StringParameterValue("c", "2"), new StringParameterValue("a", "2")))
+                .add(new StringParameterValue("b", "3"));
+
+        List<ParameterValue> values = builder.build().getParameters();
+        assertEquals(List.of("a", "b", "c"), values.stream().map(ParameterValue::getName).toList());
+        assertStringParameterValueEquals("2", values.get(0));
+        assertStringParameterValueEquals("3", values.get(1));
+        assertStringParameterValueEquals("2", values.get(2));
+        assertNotSame(builder.build(), builder.build());
+    }
+
+    @Test
+    void testLoadPropertiesFromStream() throws Exception {
+        InputStream in = new ByteArrayInputStream("key1=value1\nkey2=v\u00e4lue2\n".getBytes(StandardCharsets.UTF_8));
+
+        Properties p = ParameterizedTriggerUtils.loadProperties(in, StandardCharsets.UTF_8, 1024, "test.properties");
+
+        assertEquals("value1", p.getProperty("key1"));
+        assertEquals("v\u00e4lue2", p.getProperty("key2"));
+    }
+
+    @Test
+    void testLoadPropertiesFromStreamExceedingLimit() {
+        InputStream in = new ByteArrayInputStream("key1=value1\nkey2=value2\n".getBytes(StandardCharsets.UTF_8));
+
+        IOException e = assertThrows(
+                IOException.class,
+                () -> ParameterizedTriggerUtils.loadProperties(in, StandardCharsets.UTF_8, 10, "test.properties"));
+        assertEquals("test.properties is larger than the maximum of 10 bytes", e.getMessage());
+    }
+
     private static void assertStringParameterValueEquals(String expected, ParameterValue actual) {
         assertNotNull(actual, "ParameterValue is Null");
         assertEquals(expected, ((StringParameterValue) actual).value);
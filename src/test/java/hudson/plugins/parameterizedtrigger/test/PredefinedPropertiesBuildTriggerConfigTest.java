@@ -27,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import hudson.model.FreeStyleBuild;
 import hudson.model.ParameterDefinition;
+import hudson.model.ParameterValue;
 import hudson.model.ParametersAction;
 import hudson.model.ParametersDefinitionProperty;
 import hudson.model.PasswordParameterDefinition;
@@ -34,10 +35,12 @@ import hudson.model.PasswordParameterValue;
 import hudson.model.Project;
 import hudson.model.StringParameterDefinition;
 import hudson.model.StringParameterValue;
+import hudson.model.TextParameterDefinition;
 import hudson.plugins.parameterizedtrigger.BuildTrigger;
 import hudson.plugins.parameterizedtrigger.BuildTriggerConfig;
 import hudson.plugins.parameterizedtrigger.PredefinedBuildParameters;
 import hudson.plugins.parameterizedtrigger.ResultCondition;
+import hudson.plugins.parameterizedtrigger.TextParameterReference;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -74,6 +77,37 @@ class PredefinedPropertiesBuildTriggerConfigTest {
         assertEquals("value", builder.getEnvVars().get("KEY"));
     }
 
+    @Test
+    void testLargeTextPassedByReference(JenkinsRule r) throws Exception {
+        Project projectA = r.createFreeStyleProject("projectA");
+        projectA.getPublishersList()
+                .add(new BuildTrigger(new BuildTriggerConfig(
+                        "projectB",
+                        ResultCondition.SUCCESS,
+                        new PredefinedBuildParameters("LOG=first line\\nsecond line", true))));
+
+        CaptureEnvironmentBuilder builder = new CaptureEnvironmentBuilder();
+        Project projectB = r.createFreeStyleProject("projectB");
+        projectB.getBuildersList().add(builder);
+        projectB.setQuietPeriod(1);
+        projectB.addProperty(new ParametersDefinitionProperty(new TextParameterDefinition("LOG", "", "")));
+        r.jenkins.rebuildDependencyGraph();
+
+        int threshold = TextParameterReference.THRESHOLD;
+        TextParameterReference.THRESHOLD = 10;
+        try {
+            projectA.scheduleBuild2(0).get();
+            FreeStyleBuild build = (FreeStyleBuild) r.jenkins.getQueue().getItem(projectB).getFuture().get();
+
+            assertEquals("first line\nsecond line", builder.getEnvVars().get("LOG"));
+            ParameterValue value = build.getAction(ParametersAction.class).getParameter("LOG");
+            assertInstanceOf(TextParameterReference.class, value);
+            assertEquals("projectA", ((TextParameterReference) value).getJob());
+        } finally {
+            TextParameterReference.THRESHOLD = threshold;
+        }
+    }
+
     @Test
     void testNonAscii(JenkinsRule r) throws Exception {
         Project projectA = r.createFreeStyleProject("projectA");
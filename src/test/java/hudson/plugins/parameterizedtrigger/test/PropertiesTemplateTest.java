@@ -0,0 +1,112 @@
+package hudson.plugins.parameterizedtrigger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.EnvVars;
+import hudson.Util;
+import hudson.plugins.parameterizedtrigger.PropertiesTemplate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PropertiesTemplateTest {
+
+    private static final EnvVars ENV = new EnvVars("A", "x$B", "B", "y", "a.b", "dot");
+
+    @Test
+    void expandsLikeEnvVars() throws Exception {
+        String[] values = {
+            "plain", "$A", "${A}-$B", "$UNDEFINED/${UNDEFINED}", "$$A", "${a.b}", "$a.b", "${A", "$", "${}", "$B$B"
+        };
+        for (String value : values) {
+            PropertiesTemplate.Entry entry = parse("K=" + value.replace("\\", "\\\\")).get(0);
+            assertEquals(ENV.expand(value), entry.expand(ENV), value);
+        }
+    }
+
+    @Test
+    void multiLineValues() throws Exception {
+        List<PropertiesTemplate.Entry> entries = parse("ONE=single\nTWO=first\\nsecond $B\n");
+        assertEquals(2, entries.size());
+        for (PropertiesTemplate.Entry entry : entries) {
+            if (entry.getName().equals("ONE")) {
+                assertFalse(entry.isMultiLine());
+            } else {
+                assertTrue(entry.isMultiLine());
+                assertEquals("first\nsecond y", entry.expand(ENV));
+            }
+        }
+    }
+
+    @Test
+    void slotsFilledLikeReplacingTheText() throws Exception {
+        Map<String, String> slots = Collections.singletonMap("COUNT", "7");
+        String[] texts = {
+            "K=$COUNT",
+            "K${COUNT}=v$COUNT-$A",
+            "K=$$COUNT\nL=\\$COUNT",
+            "K=$COUNTER ${COUNT}",
+            "K=$A$COUNT",
+            "K=${A$COUNT}",
+            "K=${$COUNT}",
+            "K=$$$COUNT",
+            "K=$${COUNT}$B"
+        };
+        for (String text : texts) {
+            PropertiesTemplate template = PropertiesTemplate.parse(text, slots.keySet(), Collections.emptyList());
+            assertEquals(
+                    expand(PropertiesTemplate.parse(Util.replaceMacro(text, slots))), expand(template, slots), text);
+            assertEquals(Util.replaceMacro(text, slots), template.getText(slots), text);
+        }
+    }
+
+    @Test
+    void slotValuesAreExpandedAgain() throws Exception {
+        Map<String, String> slots = Collections.singletonMap("COUNT", "$B");
+        PropertiesTemplate template = PropertiesTemplate.parse("K=$COUNT", slots.keySet(), Collections.emptyList());
+        assertEquals(Collections.singletonMap("K", "y"), expand(template, slots));
+    }
+
+    @Test
+    void keysOverrideDefaults() throws Exception {
+        Map<String, String> slots = new HashMap<>();
+        slots.put("COUNT", "7");
+        slots.put("K", "default");
+        slots.put("L", "default");
+        PropertiesTemplate template = PropertiesTemplate.parse("K=$COUNT", slots.keySet(), Arrays.asList("K", "L"));
+        Map<String, String> expanded = expand(template, slots);
+        assertEquals("7", expanded.get("K"));
+        assertEquals("default", expanded.get("L"));
+        assertEquals("K=default\nL=default\nK=7", template.getText(slots));
+    }
+
+    @Test
+    void keysReferringToSlots() throws Exception {
+        Map<String, String> slots = Collections.singletonMap("COUNT", "7");
+        PropertiesTemplate template = PropertiesTemplate.parse(
+                "K$COUNT=$COUNT\nK7=overridden", slots.keySet(), Collections.emptyList());
+        assertEquals(Collections.singletonMap("K7", "overridden"), expand(template, slots));
+    }
+
+    private static Map<String, String> expand(PropertiesTemplate template) throws Exception {
+        return expand(template, Collections.emptyMap());
+    }
+
+    private static Map<String, String> expand(PropertiesTemplate template, Map<String, String> slots)
+            throws Exception {
+        Map<String, String> r = new HashMap<>();
+        for (PropertiesTemplate.Entry entry : template.getEntries(slots)) {
+            r.put(entry.getName(), entry.expand(slots, ENV));
+        }
+        return r;
+    }
+
+    private static List<PropertiesTemplate.Entry> parse(String properties) throws Exception {
+        return PropertiesTemplate.parse(properties).getEntries();
+    }
+}
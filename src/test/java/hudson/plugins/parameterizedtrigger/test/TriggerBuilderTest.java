@@ -43,7 +43,10 @@ import hudson.plugins.parameterizedtrigger.AbstractBuildParameterFactory;
 import hudson.plugins.parameterizedtrigger.AbstractBuildParameters;
 import hudson.plugins.parameterizedtrigger.BlockableBuildTriggerConfig;
 import hudson.plugins.parameterizedtrigger.BlockingBehaviour;
+import hudson.plugins.parameterizedtrigger.BuildAvoidance;
+import hudson.plugins.parameterizedtrigger.BuildInfoExporterAction;
 import hudson.plugins.parameterizedtrigger.CounterBuildParameterFactory;
+import hudson.plugins.parameterizedtrigger.PredefinedBuildParameters;
 import hudson.plugins.parameterizedtrigger.TriggerBuilder;
 import hudson.plugins.promoted_builds.PromotionProcess;
 import hudson.plugins.promoted_builds.conditions.DownstreamPassCondition;
@@ -289,6 +292,65 @@ class TriggerBuilderTest {
                 "project3 #3 completed. Result was SUCCESS");
     }
 
+    @Test
+    void testIdenticalParameterSetsTriggeredOnce(JenkinsRule r) throws Exception {
+        FreeStyleProject downstream = r.createFreeStyleProject("project1");
+        Project<?, ?> triggerProject = r.createFreeStyleProject();
+
+        List<AbstractBuildParameterFactory> buildParameter =
+                Collections.singletonList(new CounterBuildParameterFactory("0", "2", "1", "TEST=SAME"));
+        BlockableBuildTriggerConfig config = new BlockableBuildTriggerConfig(
+                "project1",
+                new BlockingBehaviour(Result.FAILURE, Result.UNSTABLE, Result.FAILURE),
+                buildParameter,
+                Collections.emptyList(),
+                null,
+                true);
+        triggerProject.getBuildersList().add(new TriggerBuilder(config));
+
+        r.buildAndAssertSuccess(triggerProject);
+
+        assertEquals(1, downstream.getBuilds().size());
+        assertLines(
+                triggerProject.getLastBuild(),
+                "[parameterized-trigger] 2 identical parameter sets were mapped onto builds already triggered",
+                "project1 #1 completed. Result was SUCCESS");
+        // the build is waited for and recorded once
+        assertEquals(
+                1,
+                Collections.frequency(
+                        triggerProject.getLastBuild().getLog(Integer.MAX_VALUE),
+                        "project1 #1 completed. Result was SUCCESS"));
+        assertEquals(
+                Collections.singletonList(downstream.getBuildByNumber(1)),
+                triggerProject.getLastBuild().getAction(BuildInfoExporterAction.class).getTriggeredBuilds());
+    }
+
+    @Test
+    void testRecentIdenticalBuildReused(JenkinsRule r) throws Exception {
+        FreeStyleProject downstream = r.createFreeStyleProject("project1");
+        Project<?, ?> triggerProject = r.createFreeStyleProject();
+
+        BlockableBuildTriggerConfig config = new BlockableBuildTriggerConfig(
+                "project1",
+                new BlockingBehaviour(Result.FAILURE, Result.UNSTABLE, Result.FAILURE),
+                null,
+                Collections.singletonList(new PredefinedBuildParameters("A=1")),
+                null,
+                false,
+                new BuildAvoidance(null, 60));
+        triggerProject.getBuildersList().add(new TriggerBuilder(config));
+
+        r.buildAndAssertSuccess(triggerProject);
+        FreeStyleBuild second = r.buildAndAssertSuccess(triggerProject);
+
+        assertEquals(1, downstream.getBuilds().size());
+        assertLines(second, "project1 #1 completed. Result was SUCCESS");
+        assertEquals(
+                Collections.singletonList(downstream.getBuildByNumber(1)),
+                second.getAction(BuildInfoExporterAction.class).getTriggeredBuilds());
+    }
+
     @Test
     void testBlockingTriggerWithDisabledProjects(JenkinsRule r) throws Exception {
         r.createFreeStyleProject("project1");
@@ -0,0 +1,72 @@
+package hudson.plugins.parameterizedtrigger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Project;
+import hudson.plugins.parameterizedtrigger.BuildTrigger;
+import hudson.plugins.parameterizedtrigger.BuildTriggerConfig;
+import hudson.plugins.parameterizedtrigger.ResultCondition;
+import hudson.plugins.parameterizedtrigger.WorkspaceLocalityParameters;
+import hudson.slaves.DumbSlave;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.CaptureEnvironmentBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class WorkspaceLocalityParametersTest {
+
+    @Test
+    void testWorkspaceLocality(JenkinsRule r) throws Exception {
+        DumbSlave slave0 = r.createOnlineSlave();
+        DumbSlave slave1 = r.createOnlineSlave();
+
+        CaptureEnvironmentBuilder builder = new CaptureEnvironmentBuilder();
+        FreeStyleProject projectB = r.createFreeStyleProject("projectB");
+        projectB.getBuildersList().add(builder);
+        projectB.setAssignedNode(slave1);
+
+        Project<?, ?> projectA = r.createFreeStyleProject("projectA");
+        projectA.getPublishersList()
+                .add(new BuildTrigger(new BuildTriggerConfig(
+                        "projectB", ResultCondition.SUCCESS, new WorkspaceLocalityParameters())));
+        // keeps the executor of slave1 free while it triggers
+        projectA.setAssignedNode(slave0);
+        r.jenkins.rebuildDependencyGraph();
+        r.buildAndAssertSuccess(projectA);
+        r.waitUntilNoActivity();
+        assertEquals(slave1.getNodeName(), builder.getEnvVars().get("NODE_NAME"));
+        projectB.setAssignedLabel(null);
+
+        WorkspaceLocalityParameters.WorkspaceLocalityAction action =
+                new WorkspaceLocalityParameters.WorkspaceLocalityAction();
+        assertEquals(slave1.getSelfLabel(), action.getAssignedLabel(projectB));
+        // a project tied elsewhere keeps its label
+        projectB.setAssignedNode(slave0);
+        assertNull(action.getAssignedLabel(projectB));
+        projectB.setAssignedLabel(null);
+
+        // projects never triggered with the parameter are not recorded
+        FreeStyleProject projectC = r.createFreeStyleProject("projectC");
+        projectC.setAssignedNode(slave1);
+        r.buildAndAssertSuccess(projectC);
+        projectC.setAssignedLabel(null);
+        assertNull(action.getAssignedLabel(projectC));
+
+        r.buildAndAssertSuccess(projectA);
+        r.waitUntilNoActivity();
+        assertEquals(2, projectB.getLastBuild().getNumber());
+        assertEquals(slave1.getNodeName(), builder.getEnvVars().get("NODE_NAME"));
+
+        // falls back to normal scheduling when the node cannot take the build
+        slave1.toComputer().disconnect(null).get();
+        assertNull(action.getAssignedLabel(projectB));
+        r.buildAndAssertSuccess(projectA);
+        r.waitUntilNoActivity();
+        assertEquals(3, projectB.getLastBuild().getNumber());
+        assertNotEquals(slave1.getNodeName(), builder.getEnvVars().get("NODE_NAME"));
+    }
+}
@@ -0,0 +1,66 @@
+package jmh.benchmarks;
+
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.StringParameterValue;
+import hudson.plugins.parameterizedtrigger.ParameterSetBuilder;
+import hudson.plugins.parameterizedtrigger.ParameterizedTriggerUtils;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Merges the parameters of several configs into one action, as {@code BuildTriggerConfig.getBaseActions} does,
+ * either folding them with {@link ParameterizedTriggerUtils#mergeParameters} or with one
+ * {@link ParameterSetBuilder}.
+ */
+@JmhBenchmark
+public class ParameterMergeBenchmark {
+
+    public static class JenkinsState extends JmhBenchmarkState {
+        /** Number of configs contributing parameters. */
+        @Param({"2", "10"})
+        public int configs;
+
+        /** Number of parameters of each config, half of them overriding those of the previous config. */
+        @Param({"10", "100"})
+        public int parameters;
+
+        List<ParametersAction> actions;
+
+        @Override
+        public void setup() throws Exception {
+            actions = new ArrayList<>(configs);
+            for (int c = 0; c < configs; c++) {
+                List<ParameterValue> values = new ArrayList<>(parameters);
+                for (int p = 0; p < parameters; p++) {
+                    int name = c * parameters / 2 + p;
+                    values.add(new StringParameterValue("P" + name, "value " + c));
+                }
+                actions.add(new ParametersAction(values));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mergeEachConfig(JenkinsState state, Blackhole blackhole) {
+        ParametersAction merged = null;
+        for (ParametersAction a : state.actions) {
+            merged = merged == null ? a : ParameterizedTriggerUtils.mergeParameters(merged, a);
+        }
+        blackhole.consume(merged);
+    }
+
+    @Benchmark
+    public void buildOnce(JenkinsState state, Blackhole blackhole) {
+        ParameterSetBuilder builder = new ParameterSetBuilder();
+        for (ParametersAction a : state.actions) {
+            builder.add(a);
+        }
+        blackhole.consume(builder.build());
+    }
+}